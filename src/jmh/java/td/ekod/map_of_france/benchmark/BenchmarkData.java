@@ -0,0 +1,138 @@
+package td.ekod.map_of_france.benchmark;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import td.ekod.map_of_france.config.CacheConfig;
+import td.ekod.map_of_france.entity.City;
+import td.ekod.map_of_france.service.CityIndexService;
+import td.ekod.map_of_france.service.CityService;
+import td.ekod.map_of_france.service.CitySource;
+import td.ekod.map_of_france.service.CsvReader;
+import td.ekod.map_of_france.service.GeographyService;
+
+/**
+ * Jeux de données et services assemblés sans contexte Spring pour les benchmarks
+ */
+final class BenchmarkData {
+
+    /** Jeu de données réel, sinon nombre de villes synthétiques */
+    static final String FIXTURE = "fr";
+
+    private static final long SEED = 42L;
+
+    /** Dispersion des villes synthétiques autour d'une ville réelle, en degrés */
+    private static final double JITTER_DEGREES = 0.15;
+
+    private BenchmarkData() {}
+
+    /**
+     * Charge fr.csv ("fr") ou génère le nombre de villes demandé autour des villes
+     * réelles, de façon reproductible
+     * @param dataset
+     * @return
+     */
+    static List<City> load(String dataset) {
+        List<City> fixture = loadFixture();
+        if (FIXTURE.equals(dataset)) {
+            return fixture;
+        }
+
+        int size = Integer.parseInt(dataset);
+        Random random = new Random(SEED);
+        List<City> cities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            City source = fixture.get(random.nextInt(fixture.size()));
+            City city = new City(source.getName() + " " + i, "N/A",
+                    source.getLatitude() + (random.nextDouble() * 2 - 1) * JITTER_DEGREES,
+                    source.getLongitude() + (random.nextDouble() * 2 - 1) * JITTER_DEGREES,
+                    random.nextInt(Math.max(1, source.getPopulation())),
+                    source.getRegion(), "Inconnu");
+            city.setId((long) i + 1);
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    private static List<City> loadFixture() {
+        List<City> cities = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(
+                new ClassPathResource("fr.csv").getInputStream(), StandardCharsets.UTF_8))) {
+            reader.readRecord();
+            String[] fields;
+            while ((fields = reader.readRecord()) != null) {
+                if (fields.length < 5) {
+                    continue;
+                }
+                City city = new City(fields[0].trim(), "N/A",
+                        Double.parseDouble(fields[1].trim()),
+                        Double.parseDouble(fields[2].trim()),
+                        Integer.parseInt(fields[4].trim()),
+                        fields[3].trim(), "Inconnu");
+                city.setId((long) cities.size() + 1);
+                cities.add(city);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return cities;
+    }
+
+    /**
+     * Assemble un CityService sur les villes données, avec ou sans cache des candidats
+     * @param cities
+     * @param cached
+     * @return
+     */
+    static CityService cityService(List<City> cities, boolean cached) {
+        GeographyService geographyService = new GeographyService();
+
+        CityIndexService cityIndexService = new CityIndexService();
+        ReflectionTestUtils.setField(cityIndexService, "citySource", (CitySource) () -> cities);
+        ReflectionTestUtils.setField(cityIndexService, "geographyService", geographyService);
+        ReflectionTestUtils.setField(cityIndexService, "binaryFile", "");
+        cityIndexService.getIndex();
+
+        CacheManager cacheManager = cached
+                ? new CaffeineCacheManager(CacheConfig.SEARCH_CANDIDATES)
+                : new NoOpCacheManager();
+
+        CityService cityService = new CityService();
+        ReflectionTestUtils.setField(cityService, "geographyService", geographyService);
+        ReflectionTestUtils.setField(cityService, "cityIndexService", cityIndexService);
+        ReflectionTestUtils.setField(cityService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(cityService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cityService, "cellSizeRatio", 0.25);
+        ReflectionTestUtils.invokeMethod(cityService, "registerMetrics");
+        return cityService;
+    }
+
+    /**
+     * Points de recherche reproductibles dans la France métropolitaine
+     * @param count
+     * @return {latitude, longitude} par point
+     */
+    static double[][] queryPoints(int count) {
+        Random random = new Random(SEED + 1);
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) {
+            points[i] = new double[]{
+                    42.5 + random.nextDouble() * 8.5,
+                    -4.5 + random.nextDouble() * 12.0
+            };
+        }
+        return points;
+    }
+}
@@ -0,0 +1,88 @@
+package td.ekod.map_of_france.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.dto.SearchCriteriaDto;
+import td.ekod.map_of_france.service.CityService;
+
+/**
+ * Recherche géographique de CityService sur fr.csv et sur des jeux synthétiques
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CitySearchBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({BenchmarkData.FIXTURE, "10000", "100000", "1000000"})
+    public String dataset;
+
+    /** Cache des candidats par cellule activé ou non */
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"50"})
+    public double maxDistance;
+
+    private CityService cityService;
+    private SearchCriteriaDto[] radiusQueries;
+    private SearchCriteriaDto[] nearestQueries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            next = (next + 1) & (POINTS - 1);
+            return next;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        cityService = BenchmarkData.cityService(BenchmarkData.load(dataset), cached);
+        double[][] points = BenchmarkData.queryPoints(POINTS);
+        radiusQueries = new SearchCriteriaDto[POINTS];
+        nearestQueries = new SearchCriteriaDto[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            radiusQueries[i] = new SearchCriteriaDto(points[i][0], points[i][1], 50, maxDistance, 0, "TOUTES");
+            nearestQueries[i] = new SearchCriteriaDto(points[i][0], points[i][1], 10, maxDistance, 0, "TOUTES");
+            nearestQueries[i].setMode(SearchCriteriaDto.MODE_NEAREST);
+        }
+    }
+
+    @Benchmark
+    public List<CityDto> searchRadius(Cursor cursor) {
+        return cityService.searchCities(radiusQueries[cursor.advance()]);
+    }
+
+    @Benchmark
+    public List<CityDto> searchNearest(Cursor cursor) {
+        return cityService.searchCities(nearestQueries[cursor.advance()]);
+    }
+
+    /** Géocodage inverse par la grille précalculée, sans cache */
+    @Benchmark
+    public CityDto nearestCity(Cursor cursor) {
+        SearchCriteriaDto query = nearestQueries[cursor.advance()];
+        return cityService.findNearestCity(query.getLatitude(), query.getLongitude(), false);
+    }
+}
@@ -0,0 +1,53 @@
+package td.ekod.map_of_france.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import td.ekod.map_of_france.dto.DistanceMatrixResponseDto;
+import td.ekod.map_of_france.entity.City;
+import td.ekod.map_of_france.service.CityService;
+
+/**
+ * Matrice de distances de CityService, origines × destinations de même taille
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceMatrixBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private CityService cityService;
+    private List<Long> origins;
+    private List<Long> destinations;
+
+    @Setup
+    public void setUp() {
+        List<City> cities = BenchmarkData.load("10000");
+        cityService = BenchmarkData.cityService(cities, false);
+        origins = IntStream.range(0, size).mapToObj(i -> cities.get(i).getId()).toList();
+        destinations = IntStream.range(0, size).mapToObj(i -> cities.get(cities.size() - 1 - i).getId()).toList();
+    }
+
+    @Benchmark
+    public DistanceMatrixResponseDto computeDistanceMatrix() {
+        return cityService.computeDistanceMatrix(origins, destinations);
+    }
+}
@@ -0,0 +1,58 @@
+package td.ekod.map_of_france.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import td.ekod.map_of_france.service.GeographyService;
+
+/**
+ * Calculs géographiques unitaires de GeographyService
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeographyBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private GeographyService geographyService;
+    private double[][] points;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geographyService = new GeographyService();
+        points = BenchmarkData.queryPoints(POINTS);
+    }
+
+    private double[] nextPoint() {
+        next = (next + 1) & (POINTS - 1);
+        return points[next];
+    }
+
+    @Benchmark
+    public double calculateHaversineDistance() {
+        double[] from = nextPoint();
+        double[] to = points[(next + POINTS / 2) & (POINTS - 1)];
+        return geographyService.calculateHaversineDistance(from[0], from[1], to[0], to[1]);
+    }
+
+    @Benchmark
+    public double[] calculateBoundingBox() {
+        double[] center = nextPoint();
+        return geographyService.calculateBoundingBox(center[0], center[1], 50.0);
+    }
+}
@@ -0,0 +1,110 @@
+package td.ekod.map_of_france.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test de charge HTTP minimal : concurrency clients enchaînent des GET sur l'URL pendant
+ * la durée donnée, après un temps de chauffe, puis le débit et les latences sont affichés.
+ * <p>
+ * Pour comparer les threads de plateforme et les threads virtuels, lancer l'application
+ * avec puis sans le profil virtual-threads (JDK 21) et mesurer les mêmes URL :
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=td.ekod.map_of_france.benchmark.HttpLoadTest \
+ *     -Dbenchmark.args="http://localhost:8080/api/cities/statistics 400 30"
+ * </pre>
+ */
+public final class HttpLoadTest {
+
+    private static final int WARMUP_SECONDS = 5;
+
+    private HttpLoadTest() {}
+
+    /**
+     * @param args URL [concurrence, 200 par défaut] [durée en secondes, 30 par défaut]
+     */
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+        run(client, request, concurrency, WARMUP_SECONDS, false);
+        run(client, request, concurrency, seconds, true);
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int concurrency,
+                            int seconds, boolean report) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>(concurrency);
+        int[] counts = new int[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int worker = 0; worker < concurrency; worker++) {
+            long[] own = new long[1 << 16];
+            latencies.add(own);
+            int id = worker;
+            Thread thread = new Thread(() -> {
+                long[] samples = own;
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, samples.length * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies.set(id, samples);
+                counts[id] = count;
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+
+        if (report) {
+            int total = Arrays.stream(counts).sum();
+            long[] all = new long[total];
+            int offset = 0;
+            for (int worker = 0; worker < concurrency; worker++) {
+                System.arraycopy(latencies.get(worker), 0, all, offset, counts[worker]);
+                offset += counts[worker];
+            }
+            Arrays.sort(all);
+            System.out.printf("%s, %d clients, %d s%n", request.uri(), concurrency, seconds);
+            System.out.printf("  requêtes: %d (%d erreurs), débit: %.0f req/s%n",
+                    total, errors.get(), (double) total / seconds);
+            System.out.printf("  latence p50: %.2f ms, p95: %.2f ms, p99: %.2f ms, max: %.2f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99),
+                    all.length > 0 ? all[all.length - 1] / 1e6 : 0.0);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
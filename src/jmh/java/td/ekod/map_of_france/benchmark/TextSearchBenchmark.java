@@ -0,0 +1,50 @@
+package td.ekod.map_of_france.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.service.CityService;
+
+/**
+ * Autocomplétion par nom (index de trigrammes), hors cache Spring
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TextSearchBenchmark {
+
+    @Param({BenchmarkData.FIXTURE, "10000", "100000", "1000000"})
+    public String dataset;
+
+    /** Préfixe court, nom fréquent, sous-chaîne, nom accentué, sans résultat */
+    @Param({"pa", "saint", "ville", "étienne", "zzzz"})
+    public String query;
+
+    private CityService cityService;
+
+    @Setup
+    public void setUp() {
+        cityService = BenchmarkData.cityService(BenchmarkData.load(dataset), false);
+    }
+
+    @Benchmark
+    public List<CityDto> searchCitiesByName() {
+        return cityService.searchCitiesByName(query, 10);
+    }
+}
@@ -1,27 +1,79 @@
 package td.ekod.map_of_france.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 /**
- * Configuration du cache pour optimiser les performances
+ * Configuration du cache pour optimiser les performances.
+ * Chaque cache est borné en taille et expire après écriture ; les statistiques
+ * (succès, échecs, évictions, taille) sont publiées dans les métriques cache.*
+ * Le cache des candidats est borné en poids : une entrée peut porter des milliers de villes
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    public static final String CITIES = "cities";
+    public static final String REGIONS = "regions";
+    public static final String SEARCH_CANDIDATES = "searchCandidates";
+    public static final String TEXT_SEARCH_RESULTS = "textSearchResults";
+    public static final String VECTOR_TILES = "vectorTiles";
+    
+    /**
+     * Valeur dont le poids, dans un cache borné par maximumWeight, est donné par l'entrée elle-même
+     */
+    public interface Weighted {
+        
+        /**
+         * @return le poids de l'entrée, en entiers stockés
+         */
+        int weight();
+    }
+    
+    @Value("${app.cache.cities.spec:maximumSize=5000,expireAfterWrite=1h}")
+    private String citiesSpec;
+    
+    @Value("${app.cache.regions.spec:maximumSize=10,expireAfterWrite=1h}")
+    private String regionsSpec;
+    
+    @Value("${app.cache.search-candidates.spec:maximumWeight=4000000,expireAfterWrite=10m}")
+    private String searchCandidatesSpec;
+    
+    @Value("${app.cache.text-search-results.spec:maximumSize=10000,expireAfterWrite=10m}")
+    private String textSearchResultsSpec;
+    
+    @Value("${app.cache.vector-tiles.spec:maximumSize=20000}")
+    private String vectorTilesSpec;
+    
     @Bean
     public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "cities",
-            "regions", 
-            "searchResults",
-            "cityStatistics"
-        ));
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Cache créé à la volée pour un nom non déclaré : borné lui aussi
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats());
+        cacheManager.registerCustomCache(CITIES, build(citiesSpec));
+        cacheManager.registerCustomCache(REGIONS, build(regionsSpec));
+        cacheManager.registerCustomCache(SEARCH_CANDIDATES, Caffeine.from(searchCandidatesSpec)
+                .weigher((Object key, Object value) -> value instanceof Weighted weighted ? weighted.weight() : 1)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(TEXT_SEARCH_RESULTS, build(textSearchResultsSpec));
+        cacheManager.registerCustomCache(VECTOR_TILES, build(vectorTilesSpec));
         return cacheManager;
     }
+    
+    private static Cache<Object, Object> build(String spec) {
+        return Caffeine.from(spec).recordStats().build();
+    }
 }
@@ -0,0 +1,166 @@
+package td.ekod.map_of_france.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import reactor.core.publisher.Mono;
+import td.ekod.map_of_france.service.CityIndexService;
+import td.ekod.map_of_france.service.DatasetVersion;
+
+/**
+ * Cache HTTP des lectures de l'API : Cache-Control et ETag fort tiré de la version du jeu
+ * de villes ({@link DatasetVersion}). Pas de Last-Modified : aucune date ne dépend des seules
+ * données, et l'ETag est le même sur toutes les répliques. Une requête conditionnelle dont l'ETag
+ * correspond reçoit 304 avant d'atteindre le contrôleur, sans calcul ni accès à la base.
+ * <p>
+ * Les en-têtes ne sont posés que sur les réponses 2xx, au moment où le statut est connu :
+ * une erreur de validation ou une erreur interne n'est jamais mise en cache ni revalidée.
+ * La version est lue avant le contrôleur : si l'index change pendant la requête, l'ETag est
+ * celui de l'ancienne version et la prochaine revalidation renvoie les nouvelles données.
+ */
+@Configuration
+public class HttpCacheConfig {
+    
+    static final String API_PATTERN = "/api/cities/**";
+    static final String HEALTH_PATTERN = "/api/cities/health";
+    
+    @Autowired
+    private CityIndexService cityIndexService;
+    
+    @Value("${app.http.cache-max-age:5m}")
+    private Duration maxAge;
+    
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).cachePublic();
+    }
+    
+    private void addCacheHeaders(HttpHeaders headers, String eTag) {
+        headers.setCacheControl(cacheControl());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        headers.setETag(eTag);
+    }
+    
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<OncePerRequestFilter> datasetCacheFilter() {
+        PathPattern health = PathPatternParser.defaultInstance.parse(HEALTH_PATTERN);
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod()))
+                        || health.matches(PathContainer.parsePath(
+                                request.getRequestURI().substring(request.getContextPath().length())));
+            }
+            
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                String eTag = cityIndexService.getDatasetVersion().eTag(request.getHeader(HttpHeaders.ACCEPT));
+                // Sans réponse, checkNotModified compare seulement les en-têtes conditionnels
+                if (new ServletWebRequest(request).checkNotModified(eTag)) {
+                    response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                    setCacheHeaders(response, eTag);
+                    return;
+                }
+                chain.doFilter(request, new HttpServletResponseWrapper(response) {
+                    private boolean bodyStarted;
+                    
+                    private void beforeBody() {
+                        if (!bodyStarted) {
+                            bodyStarted = true;
+                            if (HttpStatusCode.valueOf(getStatus()).is2xxSuccessful()) {
+                                setCacheHeaders(response, eTag);
+                            }
+                        }
+                    }
+                    
+                    @Override
+                    public ServletOutputStream getOutputStream() throws IOException {
+                        beforeBody();
+                        return super.getOutputStream();
+                    }
+                    
+                    @Override
+                    public PrintWriter getWriter() throws IOException {
+                        beforeBody();
+                        return super.getWriter();
+                    }
+                    
+                    @Override
+                    public void flushBuffer() throws IOException {
+                        beforeBody();
+                        super.flushBuffer();
+                    }
+                });
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/cities/*");
+        return registration;
+    }
+    
+    private void setCacheHeaders(HttpServletResponse response, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        addCacheHeaders(headers, eTag);
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    }
+    
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public WebFilter datasetCacheWebFilter() {
+        PathPattern api = PathPatternParser.defaultInstance.parse(API_PATTERN);
+        PathPattern health = PathPatternParser.defaultInstance.parse(HEALTH_PATTERN);
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if ((request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD)
+                    || !api.matches(request.getPath().pathWithinApplication())
+                    || health.matches(request.getPath().pathWithinApplication())) {
+                return chain.filter(exchange);
+            }
+            String eTag = cityIndexService.getDatasetVersion().eTag(request.getHeaders().getFirst(HttpHeaders.ACCEPT));
+            ServerHttpResponse response = exchange.getResponse();
+            if (exchange.checkNotModified(eTag)) {
+                addCacheHeaders(response.getHeaders(), eTag);
+                return response.setComplete();
+            }
+            // checkNotModified a déjà posé l'ETag : il attend le statut de la réponse
+            response.getHeaders().remove(HttpHeaders.ETAG);
+            response.beforeCommit(() -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (status == null || status.is2xxSuccessful()) {
+                    addCacheHeaders(response.getHeaders(), eTag);
+                }
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        };
+    }
+}
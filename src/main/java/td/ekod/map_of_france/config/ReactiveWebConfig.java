@@ -0,0 +1,29 @@
+package td.ekod.map_of_france.config;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import td.ekod.map_of_france.service.CityIndexService;
+
+/**
+ * Configuration de la pile réactive (profil « reactive »).
+ * Tomcat étant aussi présent pour la pile servlet, Netty est choisi explicitement ; les index
+ * sont construits au démarrage pour qu'aucune requête ne bloque une boucle d'événements
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+    
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+    
+    @Bean
+    public ApplicationRunner cityIndexWarmUp(CityIndexService cityIndexService) {
+        return args -> cityIndexService.getIndex();
+    }
+}
@@ -1,5 +1,6 @@
 package td.ekod.map_of_france.controller;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,6 +8,9 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -17,20 +21,35 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.dto.ClusterDto;
+import td.ekod.map_of_france.dto.DistanceMatrixRequestDto;
+import td.ekod.map_of_france.dto.PolygonSearchDto;
+import td.ekod.map_of_france.dto.PolygonSearchResponseDto;
 import td.ekod.map_of_france.dto.SearchCriteriaDto;
-import td.ekod.map_of_france.entity.City;
-import td.ekod.map_of_france.repository.CityRepository;
+import td.ekod.map_of_france.dto.SearchResponseDto;
+import td.ekod.map_of_france.dto.StatisticsResponseDto;
+import td.ekod.map_of_france.dto.TextSearchCityDto;
+import td.ekod.map_of_france.dto.TextSearchResponseDto;
 import td.ekod.map_of_france.service.CityService;
+import td.ekod.map_of_france.service.GeoPolygon;
 import td.ekod.map_of_france.service.GeographyService;
+
 /**
- * Contrôleur REST API pour la recherche de villes
+ * Contrôleur REST API pour la recherche de villes (pile servlet ; voir
+ * {@link ReactiveCityApiController} pour le profil « reactive »)
  */
 @RestController
 @RequestMapping("/api/cities")
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CityApiController {
     
     private static final Logger logger = LoggerFactory.getLogger(CityApiController.class);
@@ -42,7 +61,20 @@ public class CityApiController {
     private GeographyService geographyService;
     
     @Autowired
-    private CityRepository cityRepository;    
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.search.max-batch-size:10000}")
+    private int maxBatchSize;
+    
+    @Value("${app.search.max-stream-results:10000}")
+    private int maxStreamResults;
+    
+    @Value("${app.search.max-matrix-cells:4000000}")
+    private long maxMatrixCells;
+    
     /**
      * Recherche des villes selon les critères fournis
      * @param criteria
@@ -76,17 +108,197 @@ public class CityApiController {
         
         try {
             List<CityDto> cities = cityService.searchCities(criteria);
+            logger.info("Recherche terminée, {} villes trouvées", cities.size());
+            return ResponseEntity.ok(new SearchResponseDto(cities, criteria));
+            
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche de villes", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erreur interne du serveur: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Recherche des villes selon les critères fournis, en flux NDJSON (Accept: application/x-ndjson) :
+     * une ville par ligne, les plus proches d'abord, écrite dès qu'elle est convertie.
+     * maxCities peut aller jusqu'à app.search.max-stream-results
+     * @param criteria
+     * @return
+     */
+    @PostMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCities(@RequestBody SearchCriteriaDto criteria) {
+        logger.info("Requête de recherche en flux reçue: {}", criteria);
+        
+        // Le plafond de maxCities des réponses JSON ne s'applique pas au flux
+        Map<String, String> errors = CityApiRequests.validate(validator, criteria);
+        errors.remove("maxCities");
+        if (criteria.getMaxCities() == null || criteria.getMaxCities() < 1 || criteria.getMaxCities() > maxStreamResults) {
+            errors.put("maxCities", "Le nombre maximum de villes doit être compris entre 1 et " + maxStreamResults);
+        }
+        if (!errors.isEmpty()) {
+            logger.warn("Erreurs de validation: {}", errors);
+            return streamingBadRequest(Map.of("errors", errors));
+        }
+        if (!geographyService.isInFranceMetropolitaine(criteria.getLatitude(), criteria.getLongitude())) {
+            return streamingBadRequest(Map.of(
+                "error", "Les coordonnées doivent être en France métropolitaine",
+                "latitude", criteria.getLatitude(),
+                "longitude", criteria.getLongitude()
+            ));
+        }
+        
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                cityService.streamCities(criteria).forEach(writer::write);
+                logger.info("Recherche en flux terminée, {} villes écrites", writer.getCount());
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    /**
+     * Recherche des villes pour plusieurs points en une requête. Chaque point est validé
+     * séparément : un point invalide reçoit ses erreurs sans faire échouer le lot
+     * @param criteriaList
+     * @return un résultat par point, dans l'ordre de la requête
+     */
+    @PostMapping("/search/batch")
+    public ResponseEntity<?> searchCitiesBatch(@RequestBody List<SearchCriteriaDto> criteriaList) {
+        if (criteriaList.isEmpty() || criteriaList.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Le lot doit contenir entre 1 et " + maxBatchSize + " points"
+            ));
+        }
+        logger.info("Requête de recherche par lot reçue: {} points", criteriaList.size());
+        
+        List<Map<String, Object>> results = new ArrayList<>(criteriaList.size());
+        List<SearchCriteriaDto> validCriteria = new ArrayList<>(criteriaList.size());
+        List<Integer> validIndexes = new ArrayList<>(criteriaList.size());
+        for (int i = 0; i < criteriaList.size(); i++) {
+            SearchCriteriaDto criteria = criteriaList.get(i);
+            Map<String, String> errors = CityApiRequests.validate(validator, criteria);
+            if (!errors.isEmpty()) {
+                results.add(Map.of("errors", errors));
+            } else if (!geographyService.isInFranceMetropolitaine(criteria.getLatitude(), criteria.getLongitude())) {
+                results.add(Map.of("error", "Les coordonnées doivent être en France métropolitaine"));
+            } else {
+                results.add(null);
+                validCriteria.add(criteria);
+                validIndexes.add(i);
+            }
+        }
+        
+        try {
+            List<List<CityDto>> found = cityService.searchCitiesBatch(validCriteria);
+            for (int j = 0; j < found.size(); j++) {
+                List<CityDto> cities = found.get(j);
+                results.set(validIndexes.get(j), Map.of("cities", cities, "count", cities.size()));
+            }
             
             Map<String, Object> response = new HashMap<>();
-            response.put("cities", cities);
-            response.put("count", cities.size());
-            response.put("criteria", criteria);
+            response.put("results", results);
+            response.put("count", results.size());
+            response.put("errorCount", results.size() - validCriteria.size());
             
-            logger.info("Recherche terminée, {} villes trouvées", cities.size());
+            logger.info("Recherche par lot terminée: {} points, {} invalides",
+                    results.size(), results.size() - validCriteria.size());
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
-            logger.error("Erreur lors de la recherche de villes", e);
+            logger.error("Erreur lors de la recherche de villes par lot", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erreur interne du serveur: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Matrice des distances de chaque ville d'origine vers chaque ville de destination,
+     * au plus app.search.max-matrix-cells distances
+     * @param request
+     * @return la matrice rangée ligne par ligne
+     */
+    @PostMapping("/distance-matrix")
+    public ResponseEntity<?> computeDistanceMatrix(@RequestBody DistanceMatrixRequestDto request) {
+        logger.info("Requête de matrice de distances reçue: {}", request);
+        
+        String error = CityApiRequests.checkDistanceMatrix(validator, request, maxMatrixCells);
+        if (error != null) {
+            logger.warn("Matrice de distances invalide: {}", error);
+            return ResponseEntity.badRequest().body(Map.of("error", error));
+        }
+        
+        try {
+            return ResponseEntity.ok(cityService.computeDistanceMatrix(request.getOrigins(), request.getDestinations()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erreur lors du calcul de la matrice de distances", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erreur interne du serveur: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Géocodage inverse : ville la plus proche d'un point GPS
+     * @param lat
+     * @param lon
+     * @param weighted rattacher le point de préférence aux villes les plus peuplées
+     * @return la ville avec sa distance exacte en kilomètres
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<?> findNearestCity(@RequestParam double lat, @RequestParam double lon,
+                                             @RequestParam(defaultValue = "false") boolean weighted) {
+        if (!geographyService.isInFranceMetropolitaine(lat, lon)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Les coordonnées doivent être en France métropolitaine",
+                "latitude", lat,
+                "longitude", lon
+            ));
+        }
+        
+        try {
+            CityDto city = cityService.findNearestCity(lat, lon, weighted);
+            if (city == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(city);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche de la ville la plus proche", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erreur lors de la recherche de la ville la plus proche"));
+        }
+    }
+    
+    /**
+     * Recherche des villes dans une zone : polygone GeoJSON (Polygon, MultiPolygon ou Feature)
+     * et/ou forme nommée (région, département), les plus peuplées d'abord
+     * @param request
+     * @return
+     */
+    @PostMapping("/search/polygon")
+    public ResponseEntity<?> searchCitiesInPolygon(@RequestBody PolygonSearchDto request) {
+        logger.info("Requête de recherche dans une zone reçue: {}", request);
+        
+        Map<String, String> errors = CityApiRequests.validate(validator, request);
+        if (!errors.isEmpty()) {
+            logger.warn("Erreurs de validation: {}", errors);
+            return ResponseEntity.badRequest().body(Map.of("errors", errors));
+        }
+        GeoPolygon polygon;
+        try {
+            polygon = CityApiRequests.parsePolygon(request);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Zone invalide: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        
+        try {
+            PolygonSearchResponseDto response = cityService.searchCitiesInPolygon(polygon, request.getRegion(),
+                    request.getDepartment(), request.getMinPopulation(), request.getMaxCities());
+            logger.info("Recherche dans la zone terminée, {} villes trouvées", response.totalCount());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche de villes dans une zone", e);
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Erreur interne du serveur: " + e.getMessage()));
         }
@@ -116,14 +328,10 @@ public class CityApiController {
     @GetMapping("/statistics")
     public ResponseEntity<?> getStatistics() {
         try {
-            List<Object[]> regionStats = cityService.getRegionStatistics();
-            long totalCities = cityService.getTotalCityCount();
+            StatisticsResponseDto response = new StatisticsResponseDto(
+                    cityService.getTotalCityCount(), cityService.getRegionStatistics());
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("totalCities", totalCities);
-            response.put("regionStatistics", regionStats);
-            
-            logger.debug("Statistiques récupérées: {} villes au total", totalCities);
+            logger.debug("Statistiques récupérées: {} villes au total", response.totalCities());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Erreur lors de la récupération des statistiques", e);
@@ -132,6 +340,41 @@ public class CityApiController {
         }
     }
     
+    /**
+     * Groupes de villes de la zone affichée, pour les marqueurs de la carte
+     * @param bbox ouest,sud,est,nord en degrés (format de Leaflet toBBoxString())
+     * @param zoom
+     * @return
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        double[] bounds = CityApiRequests.parseBoundingBox(bbox);
+        if (bounds == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "bbox doit être de la forme ouest,sud,est,nord avec ouest < est et sud < nord"
+            ));
+        }
+        if (zoom < 0 || zoom > CityApiRequests.MAX_MAP_ZOOM) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Le zoom doit être compris entre 0 et " + CityApiRequests.MAX_MAP_ZOOM
+            ));
+        }
+        
+        try {
+            List<ClusterDto> clusters = cityService.findClusters(bounds[1], bounds[0], bounds[3], bounds[2], zoom);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("clusters", clusters);
+            response.put("count", clusters.size());
+            response.put("zoom", zoom);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Erreur lors du regroupement des villes", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erreur lors du regroupement des villes"));
+        }
+    }
+    
     /**
      * Récupère une ville par son ID
      * @param id
@@ -167,13 +410,13 @@ public class CityApiController {
         status.put("scope", "France métropolitaine uniquement");
         return ResponseEntity.ok(status);
     }
-
+    
     
     /**
      * Recherche textuelle de villes par nom
      */
     @GetMapping("/search-text")
-    public ResponseEntity<Map<String, Object>> searchCitiesByName(
+    public ResponseEntity<?> searchCitiesByName(
             @RequestParam String query,
             @RequestParam(defaultValue = "10") int limit) {
         
@@ -185,28 +428,17 @@ public class CityApiController {
             ));
         }
         
+        if (limit < 1 || limit > CityApiRequests.MAX_TEXT_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "La limite doit être comprise entre 1 et " + CityApiRequests.MAX_TEXT_SEARCH_LIMIT
+            ));
+        }
+        
         try {
-            List<City> cities = cityRepository.findByNameContainingIgnoreCaseOrderByPopulationDesc(query.trim(), limit);
-            
-            List<Map<String, Object>> cityData = cities.stream()
-                    .map(city -> {
-                        Map<String, Object> cityMap = new HashMap<>();
-                        cityMap.put("id", city.getId());
-                        cityMap.put("name", city.getName());
-                        cityMap.put("latitude", city.getLatitude());
-                        cityMap.put("longitude", city.getLongitude());
-                        cityMap.put("population", city.getPopulation());
-                        cityMap.put("region", city.getRegion());
-                        cityMap.put("postalCode", city.getPostalCode());
-                        return cityMap;
-                    })
+            List<TextSearchCityDto> cities = cityService.searchCitiesByName(query.trim(), limit).stream()
+                    .map(TextSearchCityDto::of)
                     .toList();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("cities", cityData);
-            response.put("count", cityData.size());
-            response.put("query", query);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new TextSearchResponseDto(cities, query));
         } catch (Exception e) {
             logger.error("Erreur lors de la recherche textuelle", e);
             return ResponseEntity.internalServerError().body(Map.of(
@@ -214,4 +446,45 @@ public class CityApiController {
             ));
         }
     }
+    
+    /**
+     * Recherche textuelle de villes par nom, en flux NDJSON (Accept: application/x-ndjson),
+     * jusqu'à app.search.max-stream-results villes
+     */
+    @GetMapping(value = "/search-text", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCitiesByName(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        logger.info("Recherche textuelle en flux: '{}' (limite: {})", query, limit);
+        
+        if (query == null || query.trim().length() < 2) {
+            return streamingBadRequest(Map.of(
+                "error", "La requête doit contenir au moins 2 caractères"
+            ));
+        }
+        
+        if (limit < 1 || limit > maxStreamResults) {
+            return streamingBadRequest(Map.of(
+                "error", "La limite doit être comprise entre 1 et " + maxStreamResults
+            ));
+        }
+        
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                cityService.streamCitiesByName(query.trim(), limit).map(TextSearchCityDto::of).forEach(writer::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    /**
+     * Réponse d'erreur JSON d'un point d'entrée en flux, dont le corps est nécessairement
+     * un {@link StreamingResponseBody}
+     */
+    private ResponseEntity<StreamingResponseBody> streamingBadRequest(Map<String, ?> body) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, body));
+    }
 }
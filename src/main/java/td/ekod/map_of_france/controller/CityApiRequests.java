@@ -0,0 +1,91 @@
+package td.ekod.map_of_france.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import td.ekod.map_of_france.dto.DistanceMatrixRequestDto;
+import td.ekod.map_of_france.dto.PolygonSearchDto;
+import td.ekod.map_of_france.service.GeoPolygon;
+
+/**
+ * Règles de validation et formats communs aux API des villes, servlet et réactive
+ */
+final class CityApiRequests {
+    
+    static final int MAX_TEXT_SEARCH_LIMIT = 100;
+    
+    static final int MAX_MAP_ZOOM = 22;
+    
+    private CityApiRequests() {}
+    
+    /**
+     * Lit une emprise ouest,sud,est,nord
+     * @return les quatre valeurs, ou null si l'emprise est invalide
+     */
+    static double[] parseBoundingBox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+        double[] bounds = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                bounds[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        boolean valid = bounds[0] >= -180 && bounds[2] <= 180 && bounds[0] < bounds[2]
+                && bounds[1] >= -90 && bounds[3] <= 90 && bounds[1] < bounds[3];
+        return valid ? bounds : null;
+    }
+    
+    /**
+     * Valide des critères de recherche
+     * @return les erreurs par champ, vide si les critères sont valides
+     */
+    static Map<String, String> validate(Validator validator, Object criteria) {
+        Map<String, String> errors = new HashMap<>();
+        if (criteria == null) {
+            errors.put("criteria", "Les critères de recherche sont obligatoires");
+            return errors;
+        }
+        for (ConstraintViolation<Object> violation : validator.validate(criteria)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+    
+    /**
+     * Valide une demande de matrice de distances
+     * @return le message d'erreur, null si la demande est acceptée
+     */
+    static String checkDistanceMatrix(Validator validator, DistanceMatrixRequestDto request, long maxCells) {
+        Map<String, String> errors = validate(validator, request);
+        if (!errors.isEmpty()) {
+            return String.join(", ", new TreeMap<>(errors).values());
+        }
+        if ((long) request.getOrigins().size() * request.getDestinations().size() > maxCells) {
+            return "La matrice ne peut pas dépasser " + maxCells + " distances";
+        }
+        return null;
+    }
+    
+    /**
+     * Lit le polygone d'une recherche dans une zone
+     * @return le polygone, null si la zone n'est désignée que par une région ou un département
+     * @throws IllegalArgumentException si aucune zone n'est désignée ou si la géométrie est invalide
+     */
+    static GeoPolygon parsePolygon(PolygonSearchDto request) {
+        if (!request.hasShape()) {
+            throw new IllegalArgumentException("La zone doit être désignée par une géométrie, une région ou un département");
+        }
+        JsonNode geometry = request.getGeometry();
+        return geometry != null && !geometry.isNull() ? GeoPolygon.fromGeoJson(geometry) : null;
+    }
+}
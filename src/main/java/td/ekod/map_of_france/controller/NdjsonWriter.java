@@ -0,0 +1,53 @@
+package td.ekod.map_of_france.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Écrit des objets en NDJSON (un objet JSON par ligne) au fil de l'eau.
+ * La première ligne est envoyée tout de suite, les suivantes par paquets
+ */
+final class NdjsonWriter implements Closeable {
+    
+    private static final int FLUSH_INTERVAL = 100;
+    
+    private final JsonGenerator generator;
+    private int count;
+    
+    NdjsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+    
+    /**
+     * Écrit un objet sur sa propre ligne
+     * @param value
+     * @throws UncheckedIOException si le client s'est déconnecté
+     */
+    void write(Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+            if (count++ % FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    int getCount() {
+        return count;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,411 @@
+package td.ekod.map_of_france.controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.Validator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.dto.ClusterDto;
+import td.ekod.map_of_france.dto.DistanceMatrixRequestDto;
+import td.ekod.map_of_france.dto.PolygonSearchDto;
+import td.ekod.map_of_france.dto.SearchCriteriaDto;
+import td.ekod.map_of_france.dto.SearchResponseDto;
+import td.ekod.map_of_france.dto.StatisticsResponseDto;
+import td.ekod.map_of_france.dto.TextSearchCityDto;
+import td.ekod.map_of_france.dto.TextSearchResponseDto;
+import td.ekod.map_of_france.service.CityService;
+import td.ekod.map_of_france.service.GeoPolygon;
+import td.ekod.map_of_france.service.GeographyService;
+
+/**
+ * Variante réactive (WebFlux) de l'API REST des villes, active avec le profil « reactive ».
+ * <p>
+ * Même contrat que {@link CityApiController}. Les recherches sont servies par l'index en mémoire
+ * sans bloquer la boucle d'événements ; les flux NDJSON ne convertissent une ville en DTO qu'à la
+ * demande du client (backpressure), et les lots sont calculés sur le scheduler parallèle
+ */
+@RestController
+@RequestMapping("/api/cities")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCityApiController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCityApiController.class);
+    
+    @Autowired
+    private CityService cityService;
+    
+    @Autowired
+    private GeographyService geographyService;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Value("${app.search.max-batch-size:10000}")
+    private int maxBatchSize;
+    
+    @Value("${app.search.max-stream-results:10000}")
+    private int maxStreamResults;
+    
+    @Value("${app.search.max-matrix-cells:4000000}")
+    private long maxMatrixCells;
+    
+    /**
+     * Recherche des villes selon les critères fournis
+     * @param criteria
+     * @return
+     */
+    @PostMapping("/search")
+    public Mono<ResponseEntity<?>> searchCities(@RequestBody SearchCriteriaDto criteria) {
+        logger.info("Requête de recherche reçue: {}", criteria);
+        
+        Map<String, Object> error = checkCriteria(CityApiRequests.validate(validator, criteria), criteria);
+        if (error != null) {
+            return Mono.just(ResponseEntity.badRequest().body(error));
+        }
+        
+        return Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                    List<CityDto> cities = cityService.searchCities(criteria);
+                    logger.info("Recherche terminée, {} villes trouvées", cities.size());
+                    return ResponseEntity.ok(new SearchResponseDto(cities, criteria));
+                })
+                .onErrorResume(e -> internalServerError("Erreur lors de la recherche de villes",
+                        "Erreur interne du serveur: " + e.getMessage(), e));
+    }
+    
+    /**
+     * Recherche des villes en flux NDJSON, une ville par ligne, les plus proches d'abord.
+     * maxCities peut aller jusqu'à app.search.max-stream-results
+     * @param criteria
+     * @return
+     */
+    @PostMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> streamCities(@RequestBody SearchCriteriaDto criteria) {
+        logger.info("Requête de recherche en flux reçue: {}", criteria);
+        
+        // Le plafond de maxCities des réponses JSON ne s'applique pas au flux
+        Map<String, String> errors = CityApiRequests.validate(validator, criteria);
+        errors.remove("maxCities");
+        if (criteria.getMaxCities() == null || criteria.getMaxCities() < 1 || criteria.getMaxCities() > maxStreamResults) {
+            errors.put("maxCities", "Le nombre maximum de villes doit être compris entre 1 et " + maxStreamResults);
+        }
+        Map<String, Object> error = checkCriteria(errors, criteria);
+        if (error != null) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
+        }
+        
+        Flux<CityDto> cities = Flux.fromStream(() -> cityService.streamCities(criteria));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cities);
+    }
+    
+    /**
+     * Recherche des villes pour plusieurs points en une requête ; un point invalide
+     * reçoit ses erreurs sans faire échouer le lot
+     * @param criteriaList
+     * @return
+     */
+    @PostMapping("/search/batch")
+    public Mono<ResponseEntity<?>> searchCitiesBatch(@RequestBody List<SearchCriteriaDto> criteriaList) {
+        if (criteriaList.isEmpty() || criteriaList.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "Le lot doit contenir entre 1 et " + maxBatchSize + " points"
+            )));
+        }
+        logger.info("Requête de recherche par lot reçue: {} points", criteriaList.size());
+        
+        List<Map<String, Object>> results = new ArrayList<>(criteriaList.size());
+        List<SearchCriteriaDto> validCriteria = new ArrayList<>(criteriaList.size());
+        List<Integer> validIndexes = new ArrayList<>(criteriaList.size());
+        for (int i = 0; i < criteriaList.size(); i++) {
+            SearchCriteriaDto criteria = criteriaList.get(i);
+            Map<String, Object> error = checkCriteria(CityApiRequests.validate(validator, criteria), criteria);
+            results.add(error);
+            if (error == null) {
+                validCriteria.add(criteria);
+                validIndexes.add(i);
+            }
+        }
+        
+        // Calcul parallèle hors de la boucle d'événements
+        return Mono.fromCallable(() -> cityService.searchCitiesBatch(validCriteria))
+                .subscribeOn(Schedulers.parallel())
+                .<ResponseEntity<?>>map(found -> {
+                    for (int j = 0; j < found.size(); j++) {
+                        List<CityDto> cities = found.get(j);
+                        results.set(validIndexes.get(j), Map.of("cities", cities, "count", cities.size()));
+                    }
+                    
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("results", results);
+                    response.put("count", results.size());
+                    response.put("errorCount", results.size() - validCriteria.size());
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(e -> internalServerError("Erreur lors de la recherche de villes par lot",
+                        "Erreur interne du serveur: " + e.getMessage(), e));
+    }
+    
+    /**
+     * Matrice des distances de chaque ville d'origine vers chaque ville de destination
+     * @param request
+     * @return
+     */
+    @PostMapping("/distance-matrix")
+    public Mono<ResponseEntity<?>> computeDistanceMatrix(@RequestBody DistanceMatrixRequestDto request) {
+        logger.info("Requête de matrice de distances reçue: {}", request);
+        
+        String error = CityApiRequests.checkDistanceMatrix(validator, request, maxMatrixCells);
+        if (error != null) {
+            logger.warn("Matrice de distances invalide: {}", error);
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", error)));
+        }
+        
+        // Calcul hors de la boucle d'événements
+        return Mono.fromCallable(() -> cityService.computeDistanceMatrix(request.getOrigins(), request.getDestinations()))
+                .subscribeOn(Schedulers.parallel())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("error", e.getMessage()))))
+                .onErrorResume(e -> internalServerError("Erreur lors du calcul de la matrice de distances",
+                        "Erreur interne du serveur: " + e.getMessage(), e));
+    }
+    
+    /**
+     * Géocodage inverse : ville la plus proche d'un point GPS
+     * @param lat
+     * @param lon
+     * @param weighted
+     * @return
+     */
+    @GetMapping("/nearest")
+    public Mono<ResponseEntity<?>> findNearestCity(@RequestParam double lat, @RequestParam double lon,
+                                                   @RequestParam(defaultValue = "false") boolean weighted) {
+        if (!geographyService.isInFranceMetropolitaine(lat, lon)) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "Les coordonnées doivent être en France métropolitaine",
+                "latitude", lat,
+                "longitude", lon
+            )));
+        }
+        
+        return Mono.fromSupplier(() -> cityService.findNearestCity(lat, lon, weighted))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> internalServerError("Erreur lors de la recherche de la ville la plus proche",
+                        "Erreur lors de la recherche de la ville la plus proche", e));
+    }
+    
+    /**
+     * Recherche des villes dans une zone : polygone GeoJSON et/ou forme nommée (région, département)
+     * @param request
+     * @return
+     */
+    @PostMapping("/search/polygon")
+    public Mono<ResponseEntity<?>> searchCitiesInPolygon(@RequestBody PolygonSearchDto request) {
+        logger.info("Requête de recherche dans une zone reçue: {}", request);
+        
+        Map<String, String> errors = CityApiRequests.validate(validator, request);
+        if (!errors.isEmpty()) {
+            logger.warn("Erreurs de validation: {}", errors);
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("errors", errors)));
+        }
+        GeoPolygon polygon;
+        try {
+            polygon = CityApiRequests.parsePolygon(request);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Zone invalide: {}", e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+        
+        return Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.ok(cityService.searchCitiesInPolygon(polygon,
+                        request.getRegion(), request.getDepartment(), request.getMinPopulation(), request.getMaxCities())))
+                .onErrorResume(e -> internalServerError("Erreur lors de la recherche de villes dans une zone",
+                        "Erreur interne du serveur: " + e.getMessage(), e));
+    }
+    
+    /**
+     * Récupère toutes les régions disponibles
+     * @return
+     */
+    @GetMapping("/regions")
+    public Mono<ResponseEntity<?>> getAllRegions() {
+        return Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.ok(Map.of("regions", cityService.getAllRegions())))
+                .onErrorResume(e -> internalServerError("Erreur lors de la récupération des régions",
+                        "Erreur lors de la récupération des régions", e));
+    }
+    
+    /**
+     * Récupère les statistiques par région
+     * @return
+     */
+    @GetMapping("/statistics")
+    public Mono<ResponseEntity<?>> getStatistics() {
+        return Mono.zip(
+                        Mono.fromSupplier(cityService::getRegionStatistics),
+                        Mono.fromSupplier(cityService::getTotalCityCount))
+                .<ResponseEntity<?>>map(statistics -> ResponseEntity.ok(
+                        new StatisticsResponseDto(statistics.getT2(), statistics.getT1())))
+                .onErrorResume(e -> internalServerError("Erreur lors de la récupération des statistiques",
+                        "Erreur lors de la récupération des statistiques", e));
+    }
+    
+    /**
+     * Groupes de villes de la zone affichée, pour les marqueurs de la carte
+     * @param bbox ouest,sud,est,nord en degrés
+     * @param zoom
+     * @return
+     */
+    @GetMapping("/clusters")
+    public Mono<ResponseEntity<?>> getClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        double[] bounds = CityApiRequests.parseBoundingBox(bbox);
+        if (bounds == null) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "bbox doit être de la forme ouest,sud,est,nord avec ouest < est et sud < nord"
+            )));
+        }
+        if (zoom < 0 || zoom > CityApiRequests.MAX_MAP_ZOOM) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "Le zoom doit être compris entre 0 et " + CityApiRequests.MAX_MAP_ZOOM
+            )));
+        }
+        
+        return Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                    List<ClusterDto> clusters = cityService.findClusters(bounds[1], bounds[0], bounds[3], bounds[2], zoom);
+                    
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("clusters", clusters);
+                    response.put("count", clusters.size());
+                    response.put("zoom", zoom);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(e -> internalServerError("Erreur lors du regroupement des villes",
+                        "Erreur lors du regroupement des villes", e));
+    }
+    
+    /**
+     * Récupère une ville par son ID
+     * @param id
+     * @return
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<CityDto>> getCityById(@PathVariable Long id) {
+        return Mono.fromSupplier(() -> cityService.findById(id))
+                .map(city -> ResponseEntity.ok(cityService.convertToDto(city)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Endpoint de santé pour vérifier que l'API fonctionne
+     * @return
+     */
+    @GetMapping("/health")
+    public Mono<Map<String, Object>> health() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("status", "UP");
+        status.put("timestamp", System.currentTimeMillis());
+        status.put("service", "City API");
+        status.put("scope", "France métropolitaine uniquement");
+        return Mono.just(status);
+    }
+    
+    /**
+     * Recherche textuelle de villes par nom
+     */
+    @GetMapping("/search-text")
+    public Mono<ResponseEntity<?>> searchCitiesByName(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        logger.info("Recherche textuelle: '{}' (limite: {})", query, limit);
+        
+        String error = checkTextSearch(query, limit, CityApiRequests.MAX_TEXT_SEARCH_LIMIT);
+        if (error != null) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", error)));
+        }
+        
+        return Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                    List<TextSearchCityDto> cities = cityService.searchCitiesByName(query.trim(), limit).stream()
+                            .map(TextSearchCityDto::of)
+                            .toList();
+                    return ResponseEntity.ok(new TextSearchResponseDto(cities, query));
+                })
+                .onErrorResume(e -> internalServerError("Erreur lors de la recherche textuelle",
+                        "Erreur lors de la recherche", e));
+    }
+    
+    /**
+     * Recherche textuelle de villes par nom, en flux NDJSON
+     */
+    @GetMapping(value = "/search-text", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> streamCitiesByName(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        logger.info("Recherche textuelle en flux: '{}' (limite: {})", query, limit);
+        
+        String error = checkTextSearch(query, limit, maxStreamResults);
+        if (error != null) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(Map.of("error", error));
+        }
+        
+        Flux<TextSearchCityDto> cities = Flux.fromStream(() -> cityService.streamCitiesByName(query.trim(), limit))
+                .map(TextSearchCityDto::of);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cities);
+    }
+    
+    /**
+     * Erreurs de validation ou coordonnées hors de France
+     * @return le corps de la réponse d'erreur, null si les critères sont acceptés
+     */
+    private Map<String, Object> checkCriteria(Map<String, String> errors, SearchCriteriaDto criteria) {
+        if (!errors.isEmpty()) {
+            logger.warn("Erreurs de validation: {}", errors);
+            return Map.of("errors", errors);
+        }
+        if (!geographyService.isInFranceMetropolitaine(criteria.getLatitude(), criteria.getLongitude())) {
+            logger.warn("Coordonnées hors de France: lat={}, lon={}", criteria.getLatitude(), criteria.getLongitude());
+            return Map.of(
+                "error", "Les coordonnées doivent être en France métropolitaine",
+                "latitude", criteria.getLatitude(),
+                "longitude", criteria.getLongitude()
+            );
+        }
+        return null;
+    }
+    
+    private static String checkTextSearch(String query, int limit, int maxLimit) {
+        if (query == null || query.trim().length() < 2) {
+            return "La requête doit contenir au moins 2 caractères";
+        }
+        if (limit < 1 || limit > maxLimit) {
+            return "La limite doit être comprise entre 1 et " + maxLimit;
+        }
+        return null;
+    }
+    
+    private static Mono<ResponseEntity<?>> internalServerError(String logMessage, String message, Throwable e) {
+        logger.error(logMessage, e);
+        return Mono.just(ResponseEntity.internalServerError().body(Map.of("error", message)));
+    }
+}
@@ -0,0 +1,65 @@
+package td.ekod.map_of_france.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import td.ekod.map_of_france.service.CityIndexService;
+import td.ekod.map_of_france.service.DatasetVersion;
+import td.ekod.map_of_france.service.VectorTileService;
+
+/**
+ * Contrôleur des tuiles vectorielles des villes
+ */
+@RestController
+@CrossOrigin(origins = "*")
+public class TileController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TileController.class);
+    
+    public static final MediaType MVT = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+    
+    @Autowired
+    private VectorTileService vectorTileService;
+    
+    @Autowired
+    private CityIndexService cityIndexService;
+    
+    /**
+     * Tuile Mapbox Vector Tile (couche « cities ») ; 204 si la tuile ne contient aucune ville.
+     * L'ETag suit la version du jeu de villes : une requête conditionnelle à jour reçoit 304
+     * @param z
+     * @param x
+     * @param y
+     * @return
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (z < 0 || z > VectorTileService.MAX_ZOOM || x < 0 || y < 0 || x >= (1L << z) || y >= (1L << z)) {
+            logger.warn("Tuile invalide: {}/{}/{}", z, x, y);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        CityIndexService.Snapshot snapshot = cityIndexService.getSnapshot();
+        DatasetVersion version = snapshot.version();
+        byte[] tile = vectorTileService.getTile(snapshot.index(), z, x, y);
+        CacheControl cacheControl = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+        if (tile.length == 0) {
+            return ResponseEntity.noContent().cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MVT)
+                .cacheControl(cacheControl)
+                .eTag(version.eTag(null))
+                .body(tile);
+    }
+}
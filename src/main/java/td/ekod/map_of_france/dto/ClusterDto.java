@@ -0,0 +1,38 @@
+package td.ekod.map_of_france.dto;
+
+/**
+ * DTO d'un groupe de villes affiché comme un seul marqueur
+ */
+public class ClusterDto {
+    private Double latitude;
+    private Double longitude;
+    private Integer count;
+    private Long population;
+    private CityDto city;
+    
+    public ClusterDto() {}
+    
+    public ClusterDto(Double latitude, Double longitude, Integer count, Long population, CityDto city) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.count = count;
+        this.population = population;
+        this.city = city;
+    }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+    
+    public Long getPopulation() { return population; }
+    public void setPopulation(Long population) { this.population = population; }
+    
+    /** Ville du groupe lorsqu'il n'en contient qu'une, null sinon */
+    public CityDto getCity() { return city; }
+    public void setCity(CityDto city) { this.city = city; }
+}
@@ -0,0 +1,40 @@
+package td.ekod.map_of_france.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+
+/**
+ * DTO pour le calcul d'une matrice de distances entre deux listes de villes
+ */
+public class DistanceMatrixRequestDto {
+    
+    @NotEmpty(message = "La liste des villes d'origine est obligatoire")
+    private List<Long> origins;
+    
+    @NotEmpty(message = "La liste des villes de destination est obligatoire")
+    private List<Long> destinations;
+    
+    // Constructeurs
+    public DistanceMatrixRequestDto() {}
+    
+    public DistanceMatrixRequestDto(List<Long> origins, List<Long> destinations) {
+        this.origins = origins;
+        this.destinations = destinations;
+    }
+    
+    // Getters et Setters
+    public List<Long> getOrigins() { return origins; }
+    public void setOrigins(List<Long> origins) { this.origins = origins; }
+    
+    public List<Long> getDestinations() { return destinations; }
+    public void setDestinations(List<Long> destinations) { this.destinations = destinations; }
+    
+    @Override
+    public String toString() {
+        return "DistanceMatrixRequestDto{" +
+                "origins=" + (origins != null ? origins.size() : 0) +
+                ", destinations=" + (destinations != null ? destinations.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package td.ekod.map_of_france.dto;
+
+import java.util.List;
+
+/**
+ * Matrice des distances entre villes, rangée ligne par ligne
+ * @param origins identifiants des villes d'origine, une ligne chacune
+ * @param destinations identifiants des villes de destination, une colonne chacune
+ * @param rows
+ * @param columns
+ * @param distances distances en kilomètres arrondies au mètre ; distances[i × columns + j]
+ *                  va de origins[i] à destinations[j]
+ */
+public record DistanceMatrixResponseDto(List<Long> origins, List<Long> destinations, int rows, int columns,
+                                        double[] distances) {}
@@ -0,0 +1,75 @@
+package td.ekod.map_of_france.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * DTO pour la recherche de villes dans une zone : polygone GeoJSON et/ou forme nommée
+ * (région, département), les critères donnés se cumulant
+ */
+public class PolygonSearchDto {
+    
+    /** Polygon, MultiPolygon ou Feature GeoJSON, positions [longitude, latitude] */
+    private JsonNode geometry;
+    
+    private String region; // "TOUTES" ou nom de région spécifique
+    
+    private String department;
+    
+    @Min(value = 1, message = "Le nombre maximum de villes doit être au moins 1")
+    @Max(value = 10000, message = "Le nombre maximum de villes ne peut pas dépasser 10000")
+    private Integer maxCities = 1000;
+    
+    @Min(value = 0, message = "La population minimale doit être positive")
+    private Integer minPopulation = 0;
+    
+    // Constructeurs
+    public PolygonSearchDto() {}
+    
+    public PolygonSearchDto(JsonNode geometry, String region, String department, Integer maxCities, Integer minPopulation) {
+        this.geometry = geometry;
+        this.region = region;
+        this.department = department;
+        this.maxCities = maxCities;
+        this.minPopulation = minPopulation;
+    }
+    
+    // Getters et Setters
+    public JsonNode getGeometry() { return geometry; }
+    public void setGeometry(JsonNode geometry) { this.geometry = geometry; }
+    
+    public String getRegion() { return region; }
+    public void setRegion(String region) { this.region = region; }
+    
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+    
+    public Integer getMaxCities() { return maxCities; }
+    public void setMaxCities(Integer maxCities) { this.maxCities = maxCities; }
+    
+    public Integer getMinPopulation() { return minPopulation; }
+    public void setMinPopulation(Integer minPopulation) { this.minPopulation = minPopulation; }
+    
+    /**
+     * Vrai si la requête désigne une zone : polygone, région précise ou département
+     * @return
+     */
+    public boolean hasShape() {
+        return geometry != null && !geometry.isNull()
+                || region != null && !region.isBlank() && !"TOUTES".equals(region)
+                || department != null && !department.isBlank();
+    }
+    
+    @Override
+    public String toString() {
+        return "PolygonSearchDto{" +
+                "geometry=" + (geometry != null ? geometry.path("type").asText() : null) +
+                ", region='" + region + '\'' +
+                ", department='" + department + '\'' +
+                ", maxCities=" + maxCities +
+                ", minPopulation=" + minPopulation +
+                '}';
+    }
+}
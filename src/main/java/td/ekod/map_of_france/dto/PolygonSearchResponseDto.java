@@ -0,0 +1,16 @@
+package td.ekod.map_of_france.dto;
+
+import java.util.List;
+
+/**
+ * Réponse de la recherche dans une zone
+ * @param cities villes de la zone, les plus peuplées d'abord, au plus maxCities
+ * @param count
+ * @param totalCount nombre de villes de la zone avant la limite maxCities
+ */
+public record PolygonSearchResponseDto(List<CityDto> cities, int count, int totalCount) {
+    
+    public PolygonSearchResponseDto(List<CityDto> cities, int totalCount) {
+        this(cities, cities.size(), totalCount);
+    }
+}
@@ -0,0 +1,28 @@
+package td.ekod.map_of_france.dto;
+
+/**
+ * Statistiques d'une région, calculées une fois avec l'index des villes
+ * @param region
+ * @param cityCount nombre de villes
+ * @param totalPopulation somme des populations connues
+ * @param minPopulation plus petite population connue, null si aucune
+ * @param maxPopulation plus grande population connue, null si aucune
+ * @param centroidLatitude moyenne des latitudes
+ * @param centroidLongitude moyenne des longitudes
+ * @param minLatitude emprise des villes de la région
+ * @param maxLatitude
+ * @param minLongitude
+ * @param maxLongitude
+ */
+public record RegionStatisticsDto(
+        String region,
+        long cityCount,
+        long totalPopulation,
+        Integer minPopulation,
+        Integer maxPopulation,
+        double centroidLatitude,
+        double centroidLongitude,
+        double minLatitude,
+        double maxLatitude,
+        double minLongitude,
+        double maxLongitude) {}
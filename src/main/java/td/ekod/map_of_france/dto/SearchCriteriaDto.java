@@ -5,12 +5,19 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 
 /**
  * DTO pour les critères de recherche de villes
  */
 public class SearchCriteriaDto {
     
+    /** Villes dans le rayon maxDistance, les plus proches d'abord */
+    public static final String MODE_RADIUS = "radius";
+    
+    /** Les maxCities villes les plus proches, sans limite de distance */
+    public static final String MODE_NEAREST = "nearest";
+    
     @NotNull(message = "La latitude est obligatoire")
     @DecimalMin(value = "-90.0", message = "La latitude doit être entre -90 et 90")
     @DecimalMax(value = "90.0", message = "La latitude doit être entre -90 et 90")
@@ -34,6 +41,9 @@ public class SearchCriteriaDto {
     
     private String region; // "TOUTES" ou nom de région spécifique
     
+    @Pattern(regexp = "radius|nearest", message = "Le mode de recherche doit être 'radius' ou 'nearest'")
+    private String mode = MODE_RADIUS;
+    
     // Constructeurs
     public SearchCriteriaDto() {}
     
@@ -65,4 +75,9 @@ public class SearchCriteriaDto {
     
     public String getRegion() { return region; }
     public void setRegion(String region) { this.region = region; }
+    
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+    
+    public boolean isNearestMode() { return MODE_NEAREST.equals(mode); }
 }
@@ -0,0 +1,16 @@
+package td.ekod.map_of_france.dto;
+
+import java.util.List;
+
+/**
+ * Réponse de la recherche géographique
+ * @param cities villes trouvées, les plus proches d'abord
+ * @param count
+ * @param criteria critères de la requête
+ */
+public record SearchResponseDto(List<CityDto> cities, int count, SearchCriteriaDto criteria) {
+    
+    public SearchResponseDto(List<CityDto> cities, SearchCriteriaDto criteria) {
+        this(cities, cities.size(), criteria);
+    }
+}
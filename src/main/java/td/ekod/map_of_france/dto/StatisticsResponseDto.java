@@ -0,0 +1,10 @@
+package td.ekod.map_of_france.dto;
+
+import java.util.List;
+
+/**
+ * Réponse des statistiques
+ * @param totalCities
+ * @param regionStatistics une entrée par région, triées par région
+ */
+public record StatisticsResponseDto(long totalCities, List<RegionStatisticsDto> regionStatistics) {}
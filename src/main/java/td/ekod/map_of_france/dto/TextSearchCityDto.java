@@ -0,0 +1,13 @@
+package td.ekod.map_of_france.dto;
+
+/**
+ * Ville renvoyée par la recherche textuelle (sans distance ni département)
+ */
+public record TextSearchCityDto(Long id, String name, double latitude, double longitude,
+                                Integer population, String region, String postalCode) {
+    
+    public static TextSearchCityDto of(CityDto city) {
+        return new TextSearchCityDto(city.getId(), city.getName(), city.getLatitude(), city.getLongitude(),
+                city.getPopulation(), city.getRegion(), city.getPostalCode());
+    }
+}
@@ -0,0 +1,16 @@
+package td.ekod.map_of_france.dto;
+
+import java.util.List;
+
+/**
+ * Réponse de la recherche textuelle
+ * @param cities villes par population décroissante
+ * @param count
+ * @param query texte recherché
+ */
+public record TextSearchResponseDto(List<TextSearchCityDto> cities, int count, String query) {
+    
+    public TextSearchResponseDto(List<TextSearchCityDto> cities, String query) {
+        this(cities, cities.size(), query);
+    }
+}
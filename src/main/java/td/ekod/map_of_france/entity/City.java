@@ -5,11 +5,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 
+import td.ekod.map_of_france.service.CityChangeListener;
+
 /**
  * Entité représentant une ville française avec ses coordonnées géographiques
  */
 @Entity
 @Table(name = "cities")
+@EntityListeners(CityChangeListener.class)
 public class City {
     
     @Id
@@ -2,6 +2,7 @@ package td.ekod.map_of_france.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,7 +14,7 @@ import td.ekod.map_of_france.entity.City;
  * Repository pour l'entité City avec requêtes personnalisées
  */
 @Repository
-public interface CityRepository extends JpaRepository<City, Long> {
+public interface CityRepository extends JpaRepository<City, Long>, CityRepositoryCustom {
     
     /**
      * Trouve toutes les villes distinctes par région
@@ -75,8 +76,9 @@ public interface CityRepository extends JpaRepository<City, Long> {
     
     /**
      * Recherche textuelle de villes par nom avec limite
+     * (index de trigrammes sur LOWER(name) en PostgreSQL)
      */
     @Query("SELECT c FROM City c WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) ORDER BY c.population DESC")
-    List<City> findByNameContainingIgnoreCaseOrderByPopulationDesc(@Param("query") String query, int limit);
+    List<City> findByNameContainingIgnoreCaseOrderByPopulationDesc(@Param("query") String query, Limit limit);
     
 }
@@ -0,0 +1,21 @@
+package td.ekod.map_of_france.repository;
+
+import java.util.List;
+
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Requêtes de CityRepository dépendant des capacités de la base
+ */
+public interface CityRepositoryCustom {
+    
+    /**
+     * Trouve les villes les plus proches d'un point, de la plus proche à la plus éloignée.
+     * Utilise l'index GiST PostGIS (opérateur KNN &lt;-&gt;) quand il existe.
+     * @param latitude
+     * @param longitude
+     * @param limit
+     * @return
+     */
+    List<City> findNearestCities(double latitude, double longitude, int limit);
+}
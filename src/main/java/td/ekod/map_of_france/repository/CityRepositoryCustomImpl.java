@@ -0,0 +1,78 @@
+package td.ekod.map_of_france.repository;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Implémentation de {@link CityRepositoryCustom} : la colonne geography créée par la
+ * migration PostGIS est détectée à la première requête, sinon la distance est calculée en SQL
+ */
+class CityRepositoryCustomImpl implements CityRepositoryCustom {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CityRepositoryCustomImpl.class);
+    
+    private static final String CITY_COLUMNS =
+            "id, name, postal_code, latitude, longitude, population, region, department";
+    
+    private static final String GEOGRAPHY_COLUMN_SQL = """
+        SELECT COUNT(*) FROM information_schema.columns
+        WHERE LOWER(table_schema) = LOWER(CURRENT_SCHEMA)
+        AND LOWER(table_name) = 'cities' AND LOWER(column_name) = 'geog'
+        """;
+    
+    /** Parcours de l'index GiST dans l'ordre des distances */
+    private static final String NEAREST_GEOGRAPHY_SQL = "SELECT " + CITY_COLUMNS + """
+         FROM cities
+        ORDER BY geog <-> CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)
+        LIMIT :limit
+        """;
+    
+    /** Repli sans PostGIS : terme de Haversine, croissant avec la distance, sur toute la table */
+    private static final String NEAREST_HAVERSINE_SQL = "SELECT " + CITY_COLUMNS + """
+         FROM cities
+        ORDER BY POWER(SIN(RADIANS(latitude - :latitude) / 2), 2)
+            + COS(RADIANS(:latitude)) * COS(RADIANS(latitude)) * POWER(SIN(RADIANS(longitude - :longitude) / 2), 2),
+            population DESC
+        LIMIT :limit
+        """;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private volatile Boolean geographyAvailable;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<City> findNearestCities(double latitude, double longitude, int limit) {
+        String sql = isGeographyAvailable() ? NEAREST_GEOGRAPHY_SQL : NEAREST_HAVERSINE_SQL;
+        return entityManager.createNativeQuery(sql, City.class)
+                .setParameter("latitude", latitude)
+                .setParameter("longitude", longitude)
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+    
+    private boolean isGeographyAvailable() {
+        Boolean available = geographyAvailable;
+        if (available == null) {
+            Integer count = jdbcTemplate.queryForObject(GEOGRAPHY_COLUMN_SQL, Integer.class);
+            available = count != null && count > 0;
+            geographyAvailable = available;
+            logger.info(available
+                    ? "Colonne geography PostGIS détectée : plus proches voisins par index GiST"
+                    : "PostGIS indisponible : plus proches voisins calculés sans index spatial");
+        }
+        return available;
+    }
+}
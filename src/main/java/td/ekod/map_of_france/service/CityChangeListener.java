@@ -0,0 +1,64 @@
+package td.ekod.map_of_france.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Écouteur JPA des villes : après validation d'une transaction qui a créé, modifié ou
+ * supprimé des villes, demande une seule reconstruction des index et des statistiques par
+ * région à {@link CityIndexRefresher}, qui l'exécute hors du thread de la transaction.
+ * <p>
+ * Instancié par Hibernate via le conteneur de beans Spring ; sans {@link CityIndexRefresher}
+ * dans le contexte (tests JPA seuls), il est sans effet.
+ */
+public class CityChangeListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CityChangeListener.class);
+    
+    /** Clé de la transaction courante, liée tant qu'une reconstruction y est déjà prévue */
+    private static final Object PENDING_REFRESH = new Object();
+    
+    @Autowired
+    private ObjectProvider<CityIndexRefresher> cityIndexRefresher;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onCityChanged(City city) {
+        CityIndexRefresher refresher = cityIndexRefresher.getIfAvailable();
+        if (refresher == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Hors transaction gérée par Spring : pas de validation à attendre, la demande suffit
+            refresher.requestRefresh();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(PENDING_REFRESH)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(PENDING_REFRESH, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                logger.debug("Villes modifiées, reconstruction des index demandée");
+                refresher.requestRefresh();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_REFRESH);
+            }
+        });
+    }
+}
@@ -0,0 +1,255 @@
+package td.ekod.map_of_france.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index immuable de regroupement des villes par niveau de zoom.
+ * <p>
+ * Chaque niveau est une grille Web Mercator de 4 × 4 cellules par tuile (environ 64 pixels) :
+ * les cellules du niveau le plus fin sont calculées à partir des villes, puis chaque niveau
+ * agrège les cellules du niveau inférieur. Une requête ne lit que les cellules non vides de
+ * la zone affichée, dont le nombre dépend de la taille de la carte et non des villes.
+ */
+public final class CityClusterIndex {
+    
+    /** Au-delà, les cellules ne contiennent plus qu'une ville : le dernier niveau est réutilisé */
+    public static final int MAX_ZOOM = 14;
+    
+    /** 2^CELL_BITS cellules par tuile et par axe */
+    private static final int CELL_BITS = 2;
+    
+    /** Bits par coordonnée de cellule au niveau le plus fin */
+    private static final int GRID_BITS = MAX_ZOOM + CELL_BITS;
+    
+    /** Nombre de cellules lues par requête au-delà duquel le niveau est réduit */
+    static final int MAX_CELLS = 4096;
+    
+    /**
+     * Groupe de villes d'une cellule
+     * @param latitude moyenne des latitudes
+     * @param longitude moyenne des longitudes
+     * @param count
+     * @param population population totale
+     * @param position position de la ville dans l'index spatial si le groupe n'en contient qu'une, -1 sinon
+     */
+    public record Cluster(double latitude, double longitude, int count, long population, int position) {}
+    
+    /** Cellules non vides d'un niveau, triées par clé (x, y) */
+    private static final class Level {
+        final int[] keys;
+        final int[] counts;
+        final long[] populations;
+        final double[] latitudeSums;
+        final double[] longitudeSums;
+        final int[] singles;
+        
+        Level(int size) {
+            keys = new int[size];
+            counts = new int[size];
+            populations = new long[size];
+            latitudeSums = new double[size];
+            longitudeSums = new double[size];
+            singles = new int[size];
+        }
+        
+        int size() { return keys.length; }
+    }
+    
+    private final CitySpatialIndex cities;
+    private final Level[] levels;
+    
+    private CityClusterIndex(CitySpatialIndex cities, Level[] levels) {
+        this.cities = cities;
+        this.levels = levels;
+    }
+    
+    /**
+     * Construit tous les niveaux à partir de l'index spatial
+     * @param cities
+     * @return
+     */
+    public static CityClusterIndex build(CitySpatialIndex cities) {
+        Level[] levels = new Level[MAX_ZOOM + 1];
+        
+        // Niveau le plus fin : clé de cellule (16 bits de poids fort) et position triées ensemble
+        int size = cities.size();
+        long[] entries = new long[size];
+        for (int position = 0; position < size; position++) {
+            int x = cellX(cities.getLongitude(position), GRID_BITS);
+            int y = cellY(cities.getLatitude(position), GRID_BITS);
+            entries[position] = (long) key(x, y) << 32 | position;
+        }
+        Arrays.sort(entries);
+        levels[MAX_ZOOM] = aggregateCities(cities, entries);
+        
+        for (int zoom = MAX_ZOOM - 1; zoom >= 0; zoom--) {
+            levels[zoom] = aggregateLevel(levels[zoom + 1]);
+        }
+        return new CityClusterIndex(cities, levels);
+    }
+    
+    /**
+     * Index spatial auquel renvoient les positions des groupes d'une seule ville
+     * @return
+     */
+    public CitySpatialIndex getCities() {
+        return cities;
+    }
+    
+    private static Level aggregateCities(CitySpatialIndex cities, long[] entries) {
+        Level level = new Level(countDistinctKeys(entries));
+        int cell = -1;
+        int previousKey = -1;
+        for (long entry : entries) {
+            int key = (int) (entry >>> 32);
+            int position = (int) entry;
+            if (cell < 0 || key != previousKey) {
+                cell++;
+                level.keys[cell] = key;
+                level.singles[cell] = position;
+                previousKey = key;
+            } else {
+                level.singles[cell] = -1;
+            }
+            Integer population = cities.getPopulation(position);
+            level.counts[cell]++;
+            level.populations[cell] += population != null ? population : 0;
+            level.latitudeSums[cell] += cities.getLatitude(position);
+            level.longitudeSums[cell] += cities.getLongitude(position);
+        }
+        return level;
+    }
+    
+    /**
+     * Agrège les cellules 2 × 2 d'un niveau dans la cellule parente
+     */
+    private static Level aggregateLevel(Level children) {
+        long[] entries = new long[children.size()];
+        for (int i = 0; i < entries.length; i++) {
+            int key = children.keys[i];
+            int parentKey = key(keyX(key) >>> 1, keyY(key) >>> 1);
+            entries[i] = (long) parentKey << 32 | i;
+        }
+        Arrays.sort(entries);
+        
+        Level level = new Level(countDistinctKeys(entries));
+        int cell = -1;
+        int previousKey = -1;
+        for (long entry : entries) {
+            int key = (int) (entry >>> 32);
+            int child = (int) entry;
+            if (cell < 0 || key != previousKey) {
+                cell++;
+                level.keys[cell] = key;
+                level.singles[cell] = children.singles[child];
+                previousKey = key;
+            } else {
+                level.singles[cell] = -1;
+            }
+            level.counts[cell] += children.counts[child];
+            level.populations[cell] += children.populations[child];
+            level.latitudeSums[cell] += children.latitudeSums[child];
+            level.longitudeSums[cell] += children.longitudeSums[child];
+        }
+        return level;
+    }
+    
+    private static int countDistinctKeys(long[] sortedEntries) {
+        int count = 0;
+        for (int i = 0; i < sortedEntries.length; i++) {
+            if (i == 0 || (sortedEntries[i] >>> 32) != (sortedEntries[i - 1] >>> 32)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Renvoie les groupes de villes de la zone affichée au zoom donné
+     * @param minLat
+     * @param minLon
+     * @param maxLat
+     * @param maxLon
+     * @param zoom niveau de zoom de la carte, ramené à [0, MAX_ZOOM]
+     * @return
+     */
+    public List<Cluster> findClusters(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+        int level = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        
+        // Zone trop grande pour le zoom demandé : niveau plus grossier, la réponse reste bornée
+        int x0, x1, y0, y1;
+        while (true) {
+            int bits = level + CELL_BITS;
+            x0 = cellX(minLon, bits);
+            x1 = cellX(maxLon, bits);
+            y0 = cellY(maxLat, bits);
+            y1 = cellY(minLat, bits);
+            if (level == 0 || (long) (x1 - x0 + 1) * (y1 - y0 + 1) <= MAX_CELLS) {
+                break;
+            }
+            level--;
+        }
+        
+        Level cells = levels[level];
+        List<Cluster> clusters = new ArrayList<>();
+        for (int x = x0; x <= x1; x++) {
+            int last = key(x, y1);
+            for (int i = lowerBound(cells.keys, key(x, y0)); i < cells.size() && cells.keys[i] <= last; i++) {
+                int count = cells.counts[i];
+                clusters.add(new Cluster(
+                        cells.latitudeSums[i] / count,
+                        cells.longitudeSums[i] / count,
+                        count,
+                        cells.populations[i],
+                        cells.singles[i]));
+            }
+        }
+        return clusters;
+    }
+    
+    private static int lowerBound(int[] keys, int key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    private static int key(int x, int y) {
+        return x << GRID_BITS | y;
+    }
+    
+    private static int keyX(int key) {
+        return key >>> GRID_BITS;
+    }
+    
+    private static int keyY(int key) {
+        return key & ((1 << GRID_BITS) - 1);
+    }
+    
+    /**
+     * Colonne de la cellule contenant la longitude, sur une grille de 2^bits colonnes
+     */
+    private static int cellX(double longitude, int bits) {
+        return clamp((int) Math.floor(WebMercator.x(longitude) * (1 << bits)), bits);
+    }
+    
+    /**
+     * Ligne de la cellule contenant la latitude (projection Web Mercator, nord en haut)
+     */
+    private static int cellY(double latitude, int bits) {
+        return clamp((int) Math.floor(WebMercator.y(latitude) * (1 << bits)), bits);
+    }
+    
+    private static int clamp(int cell, int bits) {
+        return Math.max(0, Math.min((1 << bits) - 1, cell));
+    }
+}
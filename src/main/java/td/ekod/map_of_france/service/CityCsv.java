@@ -0,0 +1,51 @@
+package td.ekod.map_of_france.service;
+
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Format du fichier CSV des villes : name,latitude,longitude,region,population
+ */
+public final class CityCsv {
+    
+    public static final int FIELD_COUNT = 5;
+    
+    private CityCsv() {}
+    
+    /**
+     * Vérifie l'en-tête du fichier
+     * @param header
+     * @return
+     */
+    public static boolean isExpectedHeader(String[] header) {
+        return header != null && header.length >= FIELD_COUNT && "name".equals(header[0].trim());
+    }
+    
+    /**
+     * Convertit un enregistrement CSV en ville
+     * @param fields
+     * @return
+     * @throws NumberFormatException si une coordonnée ou la population est invalide
+     */
+    public static City parse(String[] fields) {
+        String name = fields[0].trim();
+        double latitude = Double.parseDouble(fields[1].trim());
+        double longitude = Double.parseDouble(fields[2].trim());
+        String region = fields[3].trim();
+        int population = Integer.parseInt(fields[4].trim());
+        
+        String postalCode = "N/A";
+        String department = getDepartmentFromPostalCode(postalCode);
+        
+        return new City(name, postalCode, latitude, longitude, population, region, department);
+    }
+    
+    /**
+     * Extrait le département à partir du code postal
+     */
+    private static String getDepartmentFromPostalCode(String postalCode) {
+        if (postalCode != null && postalCode.length() >= 2 && !postalCode.equals("N/A")) {
+            return postalCode.substring(0, 2);
+        }
+        return "Inconnu";
+    }
+}
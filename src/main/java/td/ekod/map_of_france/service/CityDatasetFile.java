@@ -0,0 +1,199 @@
+package td.ekod.map_of_france.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Format binaire compact de l'index spatial, chargé par projection mémoire au démarrage.
+ * <p>
+ * Le fichier contient, en big-endian : un en-tête (signature, version, identité de la source,
+ * nombre de villes),
+ * une table de chaînes UTF-8 dédupliquées (noms, codes postaux, départements, régions),
+ * la table des régions, puis un enregistrement de taille fixe par ville dans l'ordre du
+ * k-d tree. La lecture remplit directement les colonnes de l'index, sans analyse de texte
+ * ni reconstruction de l'arbre. L'identité de la source ({@link CitySource#identity()}) est
+ * comparée à la lecture : une copie issue d'autres données n'est jamais servie.
+ */
+public final class CityDatasetFile {
+    
+    private static final int MAGIC = 0x4D4F4643; // "MOFC"
+    private static final int VERSION = 2;
+    
+    /** id, latitude, longitude, population, région, nom, code postal, département, axe */
+    static final int RECORD_BYTES = Long.BYTES + 2 * Double.BYTES + 5 * Integer.BYTES + 1;
+    
+    private static final int NO_STRING = -1;
+    
+    private CityDatasetFile() {}
+    
+    /**
+     * Écrit l'index dans le fichier, remplacé de façon atomique
+     * @param index
+     * @param sourceIdentity identité des données dont l'index est issu
+     * @param file
+     * @throws IOException
+     */
+    public static void write(CitySpatialIndex index, String sourceIdentity, Path file) throws IOException {
+        int size = index.size();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int[] regionStrings = new int[index.getRegions().size()];
+        for (int i = 0; i < regionStrings.length; i++) {
+            regionStrings[i] = stringIndex(strings, index.getRegions().get(i));
+        }
+        int[] nameStrings = new int[size];
+        int[] postalCodeStrings = new int[size];
+        int[] departmentStrings = new int[size];
+        for (int position = 0; position < size; position++) {
+            nameStrings[position] = stringIndex(strings, index.getName(position));
+            postalCodeStrings[position] = stringIndex(strings, index.getPostalCode(position));
+            departmentStrings[position] = stringIndex(strings, index.getDepartment(position));
+        }
+        
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, sourceIdentity);
+                out.writeInt(size);
+                
+                out.writeInt(strings.size());
+                for (String value : strings.keySet()) {
+                    writeString(out, value);
+                }
+                
+                out.writeInt(regionStrings.length);
+                for (int regionString : regionStrings) {
+                    out.writeInt(regionString);
+                }
+                
+                for (int position = 0; position < size; position++) {
+                    Integer population = index.getPopulation(position);
+                    out.writeLong(index.getId(position));
+                    out.writeDouble(index.getLatitude(position));
+                    out.writeDouble(index.getLongitude(position));
+                    out.writeInt(population != null ? population : CitySpatialIndex.NO_POPULATION);
+                    out.writeInt(index.getRegionCode(position));
+                    out.writeInt(nameStrings[position]);
+                    out.writeInt(postalCodeStrings[position]);
+                    out.writeInt(departmentStrings[position]);
+                    out.writeByte(index.getAxis(position));
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+    
+    /**
+     * Charge l'index depuis le fichier projeté en mémoire
+     * @param file
+     * @param sourceIdentity identité attendue des données
+     * @param geographyService
+     * @return
+     * @throws IOException si le fichier est illisible, tronqué, d'une autre version, issu d'une autre
+     * source ou sans identité de source
+     */
+    public static CitySpatialIndex read(Path file, String sourceIdentity, GeographyService geographyService)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Format de jeu de données binaire non reconnu: " + file);
+            }
+            String fileIdentity = readString(buffer);
+            // Sans identité, rien ne garantit que la copie correspond encore aux données
+            if (fileIdentity.isBlank() || sourceIdentity.isBlank()) {
+                throw new IOException("Jeu de données binaire sans identité de source: " + file);
+            }
+            if (!fileIdentity.equals(sourceIdentity)) {
+                throw new IOException("Jeu de données binaire issu d'une autre source (" + fileIdentity + "): " + file);
+            }
+            int size = buffer.getInt();
+            
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+            
+            String[] regions = new String[buffer.getInt()];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = string(strings, buffer.getInt());
+            }
+            
+            if (buffer.remaining() != (long) size * RECORD_BYTES) {
+                throw new IOException("Jeu de données binaire tronqué: " + file);
+            }
+            long[] ids = new long[size];
+            double[] latitudes = new double[size];
+            double[] longitudes = new double[size];
+            int[] populations = new int[size];
+            int[] regionCodes = new int[size];
+            String[] names = new String[size];
+            String[] postalCodes = new String[size];
+            String[] departments = new String[size];
+            byte[] axes = new byte[size];
+            for (int position = 0; position < size; position++) {
+                ids[position] = buffer.getLong();
+                latitudes[position] = buffer.getDouble();
+                longitudes[position] = buffer.getDouble();
+                populations[position] = buffer.getInt();
+                regionCodes[position] = buffer.getInt();
+                if (regionCodes[position] < 0 || regionCodes[position] >= regions.length) {
+                    throw new IOException("Jeu de données binaire invalide: " + file);
+                }
+                names[position] = string(strings, buffer.getInt());
+                postalCodes[position] = string(strings, buffer.getInt());
+                departments[position] = string(strings, buffer.getInt());
+                axes[position] = buffer.get();
+            }
+            
+            return CitySpatialIndex.restore(geographyService, regions, ids, names, postalCodes,
+                    latitudes, longitudes, populations, regionCodes, departments, axes);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Jeu de données binaire invalide: " + file, e);
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int stringIndex(Map<String, Integer> strings, String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        return strings.computeIfAbsent(value, v -> strings.size());
+    }
+    
+    private static String string(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+}
@@ -0,0 +1,66 @@
+package td.ekod.map_of_france.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reconstructions des index demandées après des modifications de villes.
+ * <p>
+ * Elles s'exécutent une à une sur un thread dédié, jamais sur le thread qui a validé la
+ * transaction, et sont regroupées : tant qu'une reconstruction attend son tour, les demandes
+ * suivantes n'en ajoutent pas d'autre. Une demande reçue pendant une reconstruction en
+ * programme une nouvelle, qui lira les données validées entre-temps. Les tuiles des petits
+ * zooms, vidées avec les autres caches, sont pré-calculées à nouveau après chaque reconstruction.
+ */
+@Service
+public class CityIndexRefresher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CityIndexRefresher.class);
+    
+    @Autowired
+    private CityIndexService cityIndexService;
+    
+    @Autowired
+    private VectorTileService vectorTileService;
+    
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "city-index-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /** Vrai tant qu'une reconstruction est programmée et pas encore commencée */
+    private final AtomicBoolean pending = new AtomicBoolean();
+    
+    /**
+     * Programme une reconstruction des index, sans l'attendre
+     */
+    public void requestRefresh() {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            // Remis à zéro avant de lire la source : une modification validée pendant la reconstruction en programme une autre
+            pending.set(false);
+            try {
+                cityIndexService.refresh();
+                vectorTileService.seedLowZoomTiles();
+            } catch (RuntimeException e) {
+                logger.error("Échec de la reconstruction des index après une modification des villes", e);
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
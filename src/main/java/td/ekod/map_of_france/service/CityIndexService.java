@@ -0,0 +1,230 @@
+package td.ekod.map_of_france.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+
+import td.ekod.map_of_france.config.CacheConfig;
+import td.ekod.map_of_france.dto.RegionStatisticsDto;
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Service détenant l'index spatial en mémoire des villes
+ */
+@Service
+public class CityIndexService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CityIndexService.class);
+    
+    @Autowired
+    private CitySource citySource;
+    
+    @Autowired
+    private GeographyService geographyService;
+    
+    /**
+     * Copie binaire de l'index ({@link CityDatasetFile}), chargée au premier démarrage si elle
+     * existe et provient de la même source, réécrite à chaque construction depuis la source ;
+     * vide, ou source sans identité ({@link CitySource#identity()}) : désactivée
+     */
+    @Value("${app.dataset.binary-file:}")
+    private String binaryFile;
+    
+    /** Les index et les statistiques sont remplacés ensemble pour rester cohérents entre eux */
+    private record Indexes(CitySpatialIndex spatial, CityNameIndex names, CityClusterIndex clusters,
+                           NearestCityIndex nearest, List<RegionStatisticsDto> regionStatistics,
+                           DatasetVersion version) {}
+    
+    /**
+     * Index spatial et version du jeu de villes lus ensemble, pour étiqueter une réponse
+     * avec la version des données qui l'ont produite
+     */
+    public record Snapshot(CitySpatialIndex index, DatasetVersion version) {}
+    
+    private volatile Indexes indexes;
+    
+    private final AtomicBoolean backgroundBuildStarted = new AtomicBoolean();
+    
+    /**
+     * Renvoie l'index spatial courant, construit à la première utilisation
+     * @return
+     */
+    public CitySpatialIndex getIndex() {
+        return current().spatial();
+    }
+    
+    /**
+     * Renvoie l'index des noms correspondant à l'index spatial courant
+     * @return
+     */
+    public CityNameIndex getNameIndex() {
+        return current().names();
+    }
+    
+    /**
+     * Renvoie l'index de regroupement correspondant à l'index spatial courant
+     * @return
+     */
+    public CityClusterIndex getClusterIndex() {
+        return current().clusters();
+    }
+    
+    /**
+     * Renvoie l'index de la ville la plus proche correspondant à l'index spatial courant
+     * @return
+     */
+    public NearestCityIndex getNearestCityIndex() {
+        return current().nearest();
+    }
+    
+    /**
+     * Renvoie l'index de la ville la plus proche s'il est déjà construit ; sinon lance sa
+     * construction en arrière-plan, sans l'attendre
+     * @return null tant que les premiers index ne sont pas prêts
+     */
+    public NearestCityIndex getNearestCityIndexIfReady() {
+        Indexes current = indexes;
+        if (current != null) {
+            return current.nearest();
+        }
+        if (backgroundBuildStarted.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::current).whenComplete((ignored, e) -> {
+                if (e != null) {
+                    backgroundBuildStarted.set(false);
+                    logger.warn("Échec de la construction des index en arrière-plan: {}", e.getMessage());
+                }
+            });
+        }
+        return null;
+    }
+    
+    /**
+     * Renvoie les statistiques par région de l'index spatial courant, calculées à sa construction
+     * @return
+     */
+    public List<RegionStatisticsDto> getRegionStatistics() {
+        return current().regionStatistics();
+    }
+    
+    /**
+     * Renvoie la version du jeu de villes courant, qui change à chaque reconstruction modifiant les données
+     * @return
+     */
+    public DatasetVersion getDatasetVersion() {
+        return current().version();
+    }
+    
+    /**
+     * Renvoie l'index spatial courant et sa version, issus de la même construction
+     * @return
+     */
+    public Snapshot getSnapshot() {
+        Indexes current = current();
+        return new Snapshot(current.spatial(), current.version());
+    }
+    
+    private Indexes current() {
+        Indexes current = indexes;
+        if (current == null) {
+            synchronized (this) {
+                if (indexes == null) {
+                    CitySpatialIndex spatial = loadBinaryIndex();
+                    indexes = spatial != null ? deriveIndexes(spatial) : buildIndexes();
+                }
+                current = indexes;
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Reconstruit les index après une modification des données et vide les caches qui en dépendent ;
+     * appelé après l'import et par {@link CityIndexRefresher} après les transactions modifiant des villes
+     */
+    @CacheEvict(cacheNames = {CacheConfig.CITIES, CacheConfig.REGIONS, CacheConfig.SEARCH_CANDIDATES,
+            CacheConfig.TEXT_SEARCH_RESULTS, CacheConfig.VECTOR_TILES}, allEntries = true)
+    public synchronized void refresh() {
+        indexes = buildIndexes();
+    }
+    
+    private Indexes buildIndexes() {
+        long start = System.nanoTime();
+        List<City> cities = citySource.loadCities();
+        CitySpatialIndex spatial = CitySpatialIndex.build(cities, geographyService);
+        Indexes built = deriveIndexes(spatial);
+        logger.info("Index spatial, des noms, de regroupement et des plus proches construits: {} villes en {} ms",
+                spatial.size(), (System.nanoTime() - start) / 1_000_000);
+        writeBinaryIndex(spatial);
+        return built;
+    }
+    
+    private Indexes deriveIndexes(CitySpatialIndex spatial) {
+        return new Indexes(spatial, CityNameIndex.build(spatial), CityClusterIndex.build(spatial),
+                NearestCityIndex.build(spatial, geographyService), RegionStatistics.compute(spatial),
+                DatasetVersion.of(spatial));
+    }
+    
+    /**
+     * Charge la copie binaire de l'index si elle est configurée, présente et issue de la source courante
+     * @return l'index, ou null pour le construire depuis la source
+     */
+    private CitySpatialIndex loadBinaryIndex() {
+        if (binaryFile.isBlank() || !Files.isRegularFile(Path.of(binaryFile))) {
+            return null;
+        }
+        String identity = binaryIndexIdentity();
+        if (identity == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            CitySpatialIndex spatial = CityDatasetFile.read(Path.of(binaryFile), identity, geographyService);
+            logger.info("Index spatial chargé depuis {}: {} villes en {} ms",
+                    binaryFile, spatial.size(), (System.nanoTime() - start) / 1_000_000);
+            return spatial;
+        } catch (IOException e) {
+            logger.warn("Impossible de lire {}, reconstruction depuis la source: {}", binaryFile, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeBinaryIndex(CitySpatialIndex spatial) {
+        if (binaryFile.isBlank()) {
+            return;
+        }
+        String identity = binaryIndexIdentity();
+        if (identity == null) {
+            return;
+        }
+        try {
+            CityDatasetFile.write(spatial, identity, Path.of(binaryFile));
+            logger.info("Copie binaire de l'index écrite dans {}", binaryFile);
+        } catch (IOException e) {
+            logger.warn("Impossible d'écrire {}: {}", binaryFile, e.getMessage());
+        }
+    }
+    
+    /**
+     * La copie binaire n'est utilisée que si la source sait identifier ses données : sinon une
+     * copie périmée ne pourrait pas être distinguée d'une copie à jour
+     * @return l'identité de la source, null si elle n'en a pas
+     */
+    private String binaryIndexIdentity() {
+        String identity = citySource.identity();
+        if (identity.isBlank()) {
+            logger.info("Copie binaire {} ignorée: la source des villes n'identifie pas ses données", binaryFile);
+            return null;
+        }
+        return identity;
+    }
+}
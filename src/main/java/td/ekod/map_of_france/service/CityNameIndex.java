@@ -0,0 +1,176 @@
+package td.ekod.map_of_france.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Index immuable de trigrammes sur les noms de villes, pour l'autocomplétion.
+ * <p>
+ * Les noms sont normalisés (minuscules, sans accents ni ponctuation) et classés par
+ * population décroissante : les listes de trigrammes étant triées par rang, le premier
+ * parcours vérifié renvoie directement les villes les plus peuplées et s'arrête à la limite.
+ */
+public final class CityNameIndex {
+    
+    private static final int[] EMPTY = new int[0];
+    
+    /** Positions dans l'index spatial, par population décroissante */
+    private final int[] positionsByRank;
+    
+    /** Noms normalisés, indexés par rang */
+    private final String[] foldedNames;
+    
+    /** Trigramme (3 caractères sur 16 bits) vers les rangs qui le contiennent, triés */
+    private final Map<Long, int[]> postings;
+    
+    /** Index spatial auquel renvoient les positions */
+    private final CitySpatialIndex cities;
+    
+    private CityNameIndex(CitySpatialIndex cities, int[] positionsByRank, String[] foldedNames, Map<Long, int[]> postings) {
+        this.cities = cities;
+        this.positionsByRank = positionsByRank;
+        this.foldedNames = foldedNames;
+        this.postings = postings;
+    }
+    
+    /**
+     * Construit l'index des noms des villes de l'index spatial
+     * @param cities
+     * @return
+     */
+    public static CityNameIndex build(CitySpatialIndex cities) {
+        int size = cities.size();
+        Integer[] order = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator
+                .comparingInt((Integer position) -> populationOf(cities, position)).reversed()
+                .thenComparing(position -> cities.getName(position)));
+        
+        int[] positionsByRank = new int[size];
+        String[] foldedNames = new String[size];
+        Map<Long, int[]> lists = new HashMap<>();
+        Map<Long, Integer> counts = new HashMap<>();
+        
+        for (int rank = 0; rank < size; rank++) {
+            positionsByRank[rank] = order[rank];
+            foldedNames[rank] = fold(cities.getName(order[rank]));
+            long previous = -1;
+            for (long trigram : trigrams(foldedNames[rank])) {
+                // Les trigrammes sont triés : les doublons d'un même nom sont consécutifs
+                if (trigram == previous) {
+                    continue;
+                }
+                previous = trigram;
+                int count = counts.getOrDefault(trigram, 0);
+                int[] list = lists.get(trigram);
+                if (list == null || list.length == count) {
+                    list = list == null ? new int[4] : Arrays.copyOf(list, count * 2);
+                    lists.put(trigram, list);
+                }
+                list[count] = rank;
+                counts.put(trigram, count + 1);
+            }
+        }
+        
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((trigram, list) -> postings.put(trigram, Arrays.copyOf(list, counts.get(trigram))));
+        return new CityNameIndex(cities, positionsByRank, foldedNames, postings);
+    }
+    
+    public CitySpatialIndex getCities() {
+        return cities;
+    }
+    
+    private static int populationOf(CitySpatialIndex cities, int position) {
+        Integer population = cities.getPopulation(position);
+        return population != null ? population : -1;
+    }
+    
+    /**
+     * Recherche les villes dont le nom contient la requête, sans tenir compte
+     * de la casse ni des accents, par population décroissante
+     * @param query
+     * @param limit
+     * @return les positions des villes dans l'index spatial
+     */
+    public int[] search(String query, int limit) {
+        String folded = fold(query);
+        if (folded.isEmpty() || limit <= 0) {
+            return EMPTY;
+        }
+        
+        // Requête trop courte pour un trigramme : parcours par rang, arrêté à la limite
+        int[] candidates = null;
+        if (folded.length() >= 3) {
+            for (long trigram : trigrams(folded)) {
+                int[] list = postings.get(trigram);
+                if (list == null) {
+                    return EMPTY;
+                }
+                if (candidates == null || list.length < candidates.length) {
+                    candidates = list;
+                }
+            }
+        }
+        
+        int[] results = new int[Math.min(limit, positionsByRank.length)];
+        int count = 0;
+        int candidateCount = candidates != null ? candidates.length : foldedNames.length;
+        for (int i = 0; i < candidateCount && count < results.length; i++) {
+            int rank = candidates != null ? candidates[i] : i;
+            if (foldedNames[rank].contains(folded)) {
+                results[count++] = positionsByRank[rank];
+            }
+        }
+        return count == results.length ? results : Arrays.copyOf(results, count);
+    }
+    
+    /**
+     * Normalise un nom : minuscules, accents et ligatures retirés,
+     * ponctuation remplacée par un espace unique
+     * @param text
+     * @return
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                switch (c) {
+                    case 'œ', 'Œ' -> folded.append("oe");
+                    case 'æ', 'Æ' -> folded.append("ae");
+                    default -> folded.append(Character.toLowerCase(c));
+                }
+            } else if (folded.length() > 0 && folded.charAt(folded.length() - 1) != ' ') {
+                folded.append(' ');
+            }
+        }
+        int end = folded.length();
+        if (end > 0 && folded.charAt(end - 1) == ' ') {
+            folded.setLength(end - 1);
+        }
+        return folded.toString();
+    }
+    
+    /**
+     * Trigrammes d'un texte normalisé, triés
+     */
+    private static long[] trigrams(String folded) {
+        if (folded.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[folded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) folded.charAt(i) << 32) | ((long) folded.charAt(i + 1) << 16) | folded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        return trigrams;
+    }
+}
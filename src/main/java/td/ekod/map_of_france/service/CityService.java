@@ -1,17 +1,33 @@
 package td.ekod.map_of_france.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import td.ekod.map_of_france.config.CacheConfig;
 import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.dto.ClusterDto;
+import td.ekod.map_of_france.dto.DistanceMatrixResponseDto;
+import td.ekod.map_of_france.dto.PolygonSearchResponseDto;
+import td.ekod.map_of_france.dto.RegionStatisticsDto;
 import td.ekod.map_of_france.dto.SearchCriteriaDto;
 import td.ekod.map_of_france.entity.City;
-import td.ekod.map_of_france.repository.CityRepository;
 
 /**
  * Service pour la gestion des villes et recherches géographiques
@@ -21,98 +37,505 @@ public class CityService {
     
     private static final Logger logger = LoggerFactory.getLogger(CityService.class);
     
-    @Autowired
-    private CityRepository cityRepository;
+    /**
+     * Les distances renvoyées sont arrondies au kilomètre : une ville à 50,4 km
+     * satisfait une distance maximale de 50 km
+     */
+    private static final double DISTANCE_ROUNDING_MARGIN_KM = 0.5;
+    
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * GeographyService.EARTH_RADIUS_KM;
+    
+    /** Taille de matrice de distances à partir de laquelle les lignes sont calculées en parallèle */
+    private static final int PARALLEL_MATRIX_CELLS = 65_536;
     
     @Autowired
     private GeographyService geographyService;
     
+    @Autowired
+    private CityIndexService cityIndexService;
+    
+    @Autowired
+    private CitySource citySource;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.search.cell-size-ratio:0.25}")
+    private double cellSizeRatio;
+    
+    @Value("${app.search.max-cell-radius-km:100}")
+    private double maxCellRadiusKm;
+    
+    @Value("${app.search.max-cell-candidates:5000}")
+    private int maxCellCandidates;
+    
+    private DistributionSummary candidateCounts;
+    private DistributionSummary radiusResultCounts;
+    private DistributionSummary nearestResultCounts;
+    
+    /**
+     * Candidats d'une cellule de la grille, valables pour l'index à partir duquel ils ont été calculés ;
+     * positions vaut null pour une cellule trop dense, recherchée dans le k-d tree
+     */
+    private record CellCandidates(CitySpatialIndex index, int[] positions) implements CacheConfig.Weighted {
+        
+        @Override
+        public int weight() {
+            return 16 + (positions != null ? positions.length : 0);
+        }
+    }
+    
+    /**
+     * Clé des candidats : cellule geohash sous forme numérique et critères qui filtrent les candidats
+     */
+    private record CellKey(long cell, int precision, double maxDistance, Integer minPopulation, String region) {}
+    
+    @PostConstruct
+    void registerMetrics() {
+        candidateCounts = DistributionSummary.builder("cities.search.candidates")
+                .description("Villes candidates de la cellule avant sélection des plus proches")
+                .baseUnit("cities")
+                .register(meterRegistry);
+        radiusResultCounts = resultCounts(SearchCriteriaDto.MODE_RADIUS);
+        nearestResultCounts = resultCounts(SearchCriteriaDto.MODE_NEAREST);
+    }
+    
+    private DistributionSummary resultCounts(String mode) {
+        return DistributionSummary.builder("cities.search.results")
+                .description("Villes renvoyées par recherche")
+                .baseUnit("cities")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+    
     /**
      * Recherche les villes selon les critères donnés
      * @param criteria 
      * @return
      */
     public List<CityDto> searchCities(SearchCriteriaDto criteria) {
-        logger.debug("Recherche de villes avec critères: lat={}, lon={}, maxCities={}, maxDistance={}, minPop={}, region={}",
-                criteria.getLatitude(), criteria.getLongitude(), criteria.getMaxCities(), 
-                criteria.getMaxDistance(), criteria.getMinPopulation(), criteria.getRegion());
-        
-        // Calculer la zone géographique approximative
-        double[] boundingBox = geographyService.calculateBoundingBox(
-                criteria.getLatitude(), 
-                criteria.getLongitude(), 
-                criteria.getMaxDistance()
-        );
+        if (logger.isDebugEnabled()) {
+            logger.debug("Recherche de villes avec critères: lat={}, lon={}, maxCities={}, maxDistance={}, minPop={}, region={}, mode={}",
+                    criteria.getLatitude(), criteria.getLongitude(), criteria.getMaxCities(),
+                    criteria.getMaxDistance(), criteria.getMinPopulation(), criteria.getRegion(), criteria.getMode());
+        }
         
-        // Récupérer les villes dans la zone
-        List<City> candidates = cityRepository.findCitiesInGeographicArea(
-                boundingBox[0],
-                boundingBox[1],
-                boundingBox[2],
-                boundingBox[3],
-                criteria.getMinPopulation(),
-                criteria.getRegion()
-        );
+        CitySpatialIndex index = cityIndexService.getIndex();
+        return search(index, criteria, findCellCandidates(index, criteria));
+    }
+    
+    /**
+     * Recherche les villes selon les critères donnés, les plus proches d'abord. Les villes
+     * sont sélectionnées immédiatement mais converties en DTO au fil de la consommation
+     * @param criteria
+     * @return
+     */
+    public Stream<CityDto> streamCities(SearchCriteriaDto criteria) {
+        CitySpatialIndex index = cityIndexService.getIndex();
+        SearchBuffers buffers = SearchBuffers.acquire();
+        try {
+            int count = select(index, criteria, findCellCandidates(index, criteria), buffers);
+            // Les tampons retournent au pool : le flux garde sa propre copie des gagnants
+            int[] positions = Arrays.copyOf(buffers.positions, count);
+            double[] distances = Arrays.copyOf(buffers.distances, count);
+            return IntStream.range(0, count).mapToObj(i -> convertToDto(index, positions[i], distances[i]));
+        } finally {
+            buffers.release();
+        }
+    }
+    
+    /**
+     * Recherche les villes pour plusieurs points, en parallèle et sur le même index.
+     * Les candidats d'une cellule geohash sont calculés une seule fois pour tous les
+     * points du lot qui y tombent, sans passer par le cache partagé
+     * @param criteriaList
+     * @return les résultats de chaque point, dans l'ordre des critères
+     */
+    public List<List<CityDto>> searchCitiesBatch(List<SearchCriteriaDto> criteriaList) {
+        CitySpatialIndex index = cityIndexService.getIndex();
+        Map<CellKey, CellCandidates> cells = new ConcurrentHashMap<>();
+        List<List<CityDto>> results = criteriaList.parallelStream()
+                .map(criteria -> search(index, criteria, findBatchCandidates(index, criteria, cells)))
+                .toList();
+        logger.debug("Lot de {} recherches, {} cellules candidates calculées", criteriaList.size(), cells.size());
+        return results;
+    }
+    
+    /**
+     * Recherche les villes d'un point sur l'index donné ; seuls les gagnants sont convertis en DTO
+     * @param candidates villes candidates de la cellule du point, null pour chercher dans le k-d tree
+     * @return les villes trouvées, les plus proches d'abord
+     */
+    private List<CityDto> search(CitySpatialIndex index, SearchCriteriaDto criteria, int[] candidates) {
+        SearchBuffers buffers = SearchBuffers.acquire();
+        try {
+            int count = select(index, criteria, candidates, buffers);
+            CityDto[] cities = new CityDto[count];
+            for (int i = 0; i < count; i++) {
+                cities[i] = convertToDto(index, buffers.positions[i], buffers.distances[i]);
+            }
+            return Arrays.asList(cities);
+        } finally {
+            buffers.release();
+        }
+    }
+    
+    /**
+     * Sélectionne les villes d'un point dans des tampons réutilisés, sans allocation
+     * @param candidates villes candidates de la cellule du point, null pour chercher dans le k-d tree
+     * @param buffers reçoit les positions et les distances arrondies, les plus proches d'abord
+     * @return le nombre de villes sélectionnées
+     */
+    private int select(CitySpatialIndex index, SearchCriteriaDto criteria, int[] candidates, SearchBuffers buffers) {
+        // En mode « nearest » la distance maximale ne s'applique pas
+        double maxDistance = criteria.isNearestMode() ? Double.MAX_VALUE : criteria.getMaxDistance();
         
-        logger.debug("Trouvé {} villes candidates dans la zone géographique", candidates.size());
+        // Les k plus proches dans le rayon, triés par distance puis par population
+        int found;
+        if (candidates == null) {
+            // Mode « nearest », ou rayon trop large pour des candidats par cellule : k-d tree élagué
+            found = index.findNearest(
+                    criteria.getLatitude(),
+                    criteria.getLongitude(),
+                    criteria.getMaxCities(),
+                    maxDistance + DISTANCE_ROUNDING_MARGIN_KM,
+                    criteria.getRegion(),
+                    criteria.getMinPopulation(),
+                    buffers
+            );
+        } else {
+            // Candidats partagés par tous les clics de la même cellule, affinés ici au point exact
+            candidateCounts.record(candidates.length);
+            found = index.findNearestAmong(
+                    candidates,
+                    criteria.getLatitude(),
+                    criteria.getLongitude(),
+                    criteria.getMaxCities(),
+                    maxDistance + DISTANCE_ROUNDING_MARGIN_KM,
+                    buffers
+            );
+        }
         
-        // Calculer les distances exactes et filtrer
-        List<CityDto> results = new ArrayList<>();
+        // Filtrer en place par distance maximale (distance arrondie)
+        int count = 0;
+        for (int i = 0; i < found; i++) {
+            double distance = geographyService.roundDistance(buffers.distances[i]);
+            if (distance <= maxDistance) {
+                buffers.positions[count] = buffers.positions[i];
+                buffers.distances[count] = distance;
+                count++;
+            }
+        }
         
-        for (City city : candidates) {
-            double distance = geographyService.calculateHaversineDistance(
-                    criteria.getLatitude(), criteria.getLongitude(),
-                    city.getLatitude(), city.getLongitude()
-            );
-            
-            // Filtrer par distance maximale
-            if (distance <= criteria.getMaxDistance()) {
-                CityDto dto = convertToDto(city, distance);
-                results.add(dto);
+        (criteria.isNearestMode() ? nearestResultCounts : radiusResultCounts).record(count);
+        logger.debug("Retour de {} villes après recherche des plus proches voisins", count);
+        return count;
+    }
+    
+    /**
+     * Renvoie, depuis le cache, les villes susceptibles d'être dans le rayon de n'importe quel
+     * point de la cellule geohash contenant le point recherché
+     * @param index
+     * @param criteria
+     * @return null en mode « nearest », au-delà de app.search.max-cell-radius-km ou pour une
+     * cellule de plus de app.search.max-cell-candidates villes : le k-d tree fait alors mieux
+     * qu'un parcours linéaire des candidats
+     */
+    private int[] findCellCandidates(CitySpatialIndex index, SearchCriteriaDto criteria) {
+        if (!usesCellCandidates(criteria)) {
+            return null;
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.SEARCH_CANDIDATES);
+        CellKey key = cellKey(criteria);
+        CellCandidates candidates = cache.get(key, () -> computeCellCandidates(index, key));
+        if (candidates.index() != index) {
+            // Entrée calculée sur un index remplacé depuis
+            candidates = computeCellCandidates(index, key);
+            cache.put(key, candidates);
+        }
+        return candidates.positions();
+    }
+    
+    /**
+     * Comme {@link #findCellCandidates}, mais avec les cellules propres au lot : un lot
+     * parcourt de nombreuses cellules qui évinceraient celles du cache partagé
+     */
+    private int[] findBatchCandidates(CitySpatialIndex index, SearchCriteriaDto criteria,
+                                      Map<CellKey, CellCandidates> cells) {
+        if (!usesCellCandidates(criteria)) {
+            return null;
+        }
+        return cells.computeIfAbsent(cellKey(criteria), key -> computeCellCandidates(index, key)).positions();
+    }
+    
+    private boolean usesCellCandidates(SearchCriteriaDto criteria) {
+        return !criteria.isNearestMode() && criteria.getMaxDistance() <= maxCellRadiusKm;
+    }
+    
+    /**
+     * Cellule geohash du point, sous forme numérique pour ne pas construire de chaîne par requête
+     */
+    private CellKey cellKey(SearchCriteriaDto criteria) {
+        int precision = cellPrecision(criteria.getMaxDistance());
+        long cell = Geohash.encodeBits(criteria.getLatitude(), criteria.getLongitude(), precision);
+        return new CellKey(cell, precision, criteria.getMaxDistance(), criteria.getMinPopulation(), criteria.getRegion());
+    }
+    
+    /**
+     * Par l'inégalité triangulaire, une ville à moins de maxDistance d'un point de la cellule
+     * est à moins de maxDistance + rayon de la cellule de son centre
+     */
+    private CellCandidates computeCellCandidates(CitySpatialIndex index, CellKey key) {
+        double[] bounds = Geohash.decodeBounds(key.cell(), key.precision());
+        double centerLat = (bounds[0] + bounds[1]) / 2;
+        double centerLon = (bounds[2] + bounds[3]) / 2;
+        double cellRadius = 0.0;
+        for (int lat = 0; lat <= 1; lat++) {
+            for (int lon = 2; lon <= 3; lon++) {
+                cellRadius = Math.max(cellRadius, geographyService.calculateExactHaversineDistance(
+                        centerLat, centerLon, bounds[lat], bounds[lon]));
             }
         }
+        int[] positions = index.findWithinRadius(centerLat, centerLon,
+                key.maxDistance() + DISTANCE_ROUNDING_MARGIN_KM + cellRadius,
+                key.region(), key.minPopulation());
+        logger.debug("Cellule {} : {} villes candidates", Geohash.encode(centerLat, centerLon, key.precision()),
+                positions.length);
+        // Cellule trop dense : seul le marqueur est gardé, les requêtes suivantes passent par le k-d tree
+        return new CellCandidates(index, positions.length > maxCellCandidates ? null : positions);
+    }
+    
+    /**
+     * Précision geohash la plus grossière dont la demi-diagonale des cellules
+     * (majorée à l'équateur) ne dépasse pas cellSizeRatio × maxDistance
+     */
+    private int cellPrecision(double maxDistanceKm) {
+        double maxHalfDiagonalKm = cellSizeRatio * maxDistanceKm;
+        for (int precision = 1; precision < Geohash.MAX_PRECISION; precision++) {
+            double heightKm = Geohash.cellHeightDegrees(precision) * KM_PER_DEGREE;
+            double widthKm = Geohash.cellWidthDegrees(precision) * KM_PER_DEGREE;
+            if (Math.hypot(heightKm, widthKm) / 2 <= maxHalfDiagonalKm) {
+                return precision;
+            }
+        }
+        return Geohash.MAX_PRECISION;
+    }
+    
+    /**
+     * Calcule les distances de chaque ville d'origine vers chaque ville de destination, sur des
+     * tableaux primitifs ; les lignes sont réparties sur le pool fork-join au-delà de
+     * {@link #PARALLEL_MATRIX_CELLS} distances
+     * @param origins identifiants des villes d'origine
+     * @param destinations identifiants des villes de destination
+     * @return la matrice rangée ligne par ligne, distances en kilomètres arrondies au mètre
+     * @throws IllegalArgumentException si un identifiant ne correspond à aucune ville
+     */
+    public DistanceMatrixResponseDto computeDistanceMatrix(List<Long> origins, List<Long> destinations) {
+        CitySpatialIndex index = cityIndexService.getIndex();
+        GeographyService.PointColumns from = preparePoints(index, origins);
+        GeographyService.PointColumns to = preparePoints(index, destinations);
         
-        // Trier par distance puis par population
-        results.sort((a, b) -> {
-            int distanceComparison = Double.compare(a.getDistance(), b.getDistance());
-            if (distanceComparison != 0) {
-                return distanceComparison;
+        int rows = from.size();
+        int columns = to.size();
+        double[] distances = new double[rows * columns];
+        IntStream rowIndexes = IntStream.range(0, rows);
+        if ((long) rows * columns >= PARALLEL_MATRIX_CELLS) {
+            rowIndexes = rowIndexes.parallel();
+        }
+        rowIndexes.forEach(i -> {
+            int offset = i * columns;
+            geographyService.calculateExactHaversineDistances(from, i, to, distances, offset);
+            for (int j = offset; j < offset + columns; j++) {
+                distances[j] = Math.round(distances[j] * 1000) / 1000.0;
             }
-            return Integer.compare(b.getPopulation(), a.getPopulation());
         });
+        logger.debug("Matrice de distances {} × {} calculée", rows, columns);
+        return new DistanceMatrixResponseDto(origins, destinations, rows, columns, distances);
+    }
+    
+    /**
+     * Coordonnées des villes d'identifiants donnés, dans l'ordre de la liste
+     * @throws IllegalArgumentException si un identifiant ne correspond à aucune ville
+     */
+    private GeographyService.PointColumns preparePoints(CitySpatialIndex index, List<Long> ids) {
+        double[] latitudes = new double[ids.size()];
+        double[] longitudes = new double[ids.size()];
+        List<Long> unknown = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            int position = id != null ? index.findPosition(id) : -1;
+            if (position < 0) {
+                unknown.add(id);
+                continue;
+            }
+            latitudes[i] = index.getLatitude(position);
+            longitudes[i] = index.getLongitude(position);
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Villes inconnues: " + unknown);
+        }
+        return geographyService.preparePoints(latitudes, longitudes);
+    }
+    
+    /**
+     * Géocodage inverse : ville la plus proche du point, lue dans la grille précalculée.
+     * Tant que les index ne sont pas construits (démarrage, import), la recherche simple
+     * est confiée à la source, c'est-à-dire à l'index spatial de la base
+     * @param latitude
+     * @param longitude
+     * @param weighted rattacher le point en tenant compte de la population (voir
+     *                 {@link NearestCityIndex#findNearestWeighted})
+     * @return la ville avec sa distance exacte en kilomètres, null si aucune ville n'est indexée
+     */
+    public CityDto findNearestCity(double latitude, double longitude, boolean weighted) {
+        NearestCityIndex nearestIndex = cityIndexService.getNearestCityIndexIfReady();
+        if (nearestIndex == null && !weighted) {
+            List<City> nearest = citySource.findNearestCities(latitude, longitude, 1);
+            if (nearest != null) {
+                logger.debug("Index en construction : ville la plus proche lue dans la source");
+                if (nearest.isEmpty()) {
+                    return null;
+                }
+                City city = nearest.get(0);
+                return convertToDto(city, geographyService.calculateExactHaversineDistance(
+                        latitude, longitude, city.getLatitude(), city.getLongitude()));
+            }
+        }
+        if (nearestIndex == null) {
+            nearestIndex = cityIndexService.getNearestCityIndex();
+        }
+        CitySpatialIndex index = nearestIndex.getCities();
+        int position = weighted
+                ? nearestIndex.findNearestWeighted(latitude, longitude)
+                : nearestIndex.findNearest(latitude, longitude);
+        if (position < 0) {
+            return null;
+        }
+        double distance = geographyService.calculateExactHaversineDistance(
+                latitude, longitude, index.getLatitude(position), index.getLongitude(position));
+        return convertToDto(index, position, distance);
+    }
+    
+    /**
+     * Recherche les villes d'une zone, les plus peuplées d'abord ; une seule requête
+     * remplace les recherches par rayon qui approchaient la zone
+     * @param polygon null pour ne chercher que par région ou département
+     * @param region
+     * @param department
+     * @param minPopulation
+     * @param maxCities
+     * @return les maxCities premières villes et le nombre total de villes de la zone
+     */
+    public PolygonSearchResponseDto searchCitiesInPolygon(GeoPolygon polygon, String region, String department,
+                                                          Integer minPopulation, int maxCities) {
+        CitySpatialIndex index = cityIndexService.getIndex();
+        int[] positions = index.findWithinPolygon(polygon, region, department, minPopulation);
+        int[] ranked = index.sortByPopulation(positions);
         
-        // Limiter le nombre de résultats
-        if (results.size() > criteria.getMaxCities()) {
-            results = results.subList(0, criteria.getMaxCities());
+        int count = Math.min(ranked.length, maxCities);
+        CityDto[] cities = new CityDto[count];
+        for (int i = 0; i < count; i++) {
+            cities[i] = convertToDto(index, ranked[i], null);
         }
+        logger.debug("{} villes dans la zone ({} sommets), {} renvoyées", positions.length,
+                polygon != null ? polygon.getVertexCount() : 0, count);
+        return new PolygonSearchResponseDto(Arrays.asList(cities), positions.length);
+    }
+    
+    /**
+     * Regroupe les villes de la zone affichée selon le niveau de zoom de la carte
+     * @param minLat
+     * @param minLon
+     * @param maxLat
+     * @param maxLon
+     * @param zoom
+     * @return
+     */
+    public List<ClusterDto> findClusters(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+        // Positions lues dans l'index spatial de l'index de regroupement, même après un rechargement
+        CityClusterIndex clusterIndex = cityIndexService.getClusterIndex();
+        CitySpatialIndex index = clusterIndex.getCities();
+        List<CityClusterIndex.Cluster> clusters = clusterIndex.findClusters(minLat, minLon, maxLat, maxLon, zoom);
         
-        logger.debug("Retour de {} villes après filtrage et tri", results.size());
+        List<ClusterDto> results = new ArrayList<>(clusters.size());
+        for (CityClusterIndex.Cluster cluster : clusters) {
+            CityDto city = cluster.position() >= 0 ? convertToDto(index, cluster.position(), null) : null;
+            results.add(new ClusterDto(cluster.latitude(), cluster.longitude(),
+                    cluster.count(), cluster.population(), city));
+        }
+        logger.debug("{} groupes de villes au zoom {}", results.size(), zoom);
         return results;
     }
     
     /**
-     * Récupère toutes les régions disponibles
+     * Recherche textuelle de villes par nom, sans tenir compte de la casse ni des accents,
+     * par population décroissante
+     * @param query
+     * @param limit
+     * @return
+     */
+    @Cacheable(cacheNames = CacheConfig.TEXT_SEARCH_RESULTS, key = "{#query.toLowerCase(), #limit}")
+    public List<CityDto> searchCitiesByName(String query, int limit) {
+        return streamCitiesByName(query, limit).toList();
+    }
+    
+    /**
+     * Recherche textuelle de villes par nom, par population décroissante, sans cache ;
+     * les villes sont converties en DTO au fil de la consommation
+     * @param query
+     * @param limit
      * @return
      */
+    public Stream<CityDto> streamCitiesByName(String query, int limit) {
+        CityNameIndex nameIndex = cityIndexService.getNameIndex();
+        CitySpatialIndex index = nameIndex.getCities();
+        int[] positions = nameIndex.search(query, limit);
+        return Arrays.stream(positions).mapToObj(position -> convertToDto(index, position, 0.0));
+    }
+    
+    /**
+     * Récupère toutes les régions disponibles, triées, depuis la table des régions de l'index
+     * @return
+     */
+    @Cacheable(cacheNames = CacheConfig.REGIONS, key = "'all'")
     public List<String> getAllRegions() {
-        return cityRepository.findAllDistinctRegions();
+        return cityIndexService.getIndex().getRegions();
     }
     
     /**
-     * Récupère les statistiques par région
+     * Récupère les statistiques par région, triées par région ; calculées avec l'index
+     * et servies depuis la mémoire
      * @return
      */
-    public List<Object[]> getRegionStatistics() {
-        return cityRepository.countCitiesByRegion();
+    public List<RegionStatisticsDto> getRegionStatistics() {
+        return cityIndexService.getRegionStatistics();
     }
     
     /**
-     * Trouve une ville par son ID
+     * Trouve une ville par son ID dans l'index
      * @param id
      * @return
      */
+    @Cacheable(cacheNames = CacheConfig.CITIES, key = "#id")
     public City findById(Long id) {
-        return cityRepository.findById(id).orElse(null);
+        CitySpatialIndex index = cityIndexService.getIndex();
+        int position = id != null ? index.findPosition(id) : -1;
+        if (position < 0) {
+            return null;
+        }
+        City city = new City(
+                index.getName(position),
+                index.getPostalCode(position),
+                index.getLatitude(position),
+                index.getLongitude(position),
+                index.getPopulation(position),
+                index.getRegion(position),
+                index.getDepartment(position));
+        city.setId(index.getId(position));
+        return city;
     }
     
     /**
@@ -135,6 +558,27 @@ public class CityService {
         );
     }
     
+    /**
+     * Convertit une ville de l'index spatial en DTO avec distance
+     * @param index
+     * @param position
+     * @param distance
+     * @return
+     */
+    private CityDto convertToDto(CitySpatialIndex index, int position, Double distance) {
+        return new CityDto(
+                index.getId(position),
+                index.getName(position),
+                index.getPostalCode(position),
+                index.getLatitude(position),
+                index.getLongitude(position),
+                index.getPopulation(position),
+                index.getRegion(position),
+                index.getDepartment(position),
+                distance
+        );
+    }
+    
     /**
      * Convertit une entité City en DTO sans distance
      * @param city
@@ -149,6 +593,6 @@ public class CityService {
      * @return
      */
     public long getTotalCityCount() {
-        return cityRepository.count();
+        return cityIndexService.getIndex().size();
     }
 }
@@ -0,0 +1,38 @@
+package td.ekod.map_of_france.service;
+
+import java.util.List;
+
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Source des villes à partir de laquelle les index en mémoire sont construits
+ */
+public interface CitySource {
+    
+    /**
+     * Charge toutes les villes
+     * @return
+     */
+    List<City> loadCities();
+    
+    /**
+     * Identité des données, enregistrée dans la copie binaire de l'index : la copie n'est
+     * relue que si elle est issue de données de même identité
+     * @return vide si la source ne sait pas identifier ses données
+     */
+    default String identity() {
+        return "";
+    }
+    
+    /**
+     * Villes les plus proches d'un point, lues directement dans la source pendant que les
+     * index en mémoire ne sont pas encore construits
+     * @param latitude
+     * @param longitude
+     * @param limit
+     * @return de la plus proche à la plus éloignée, null si la source ne sait pas faire cette recherche
+     */
+    default List<City> findNearestCities(double latitude, double longitude, int limit) {
+        return null;
+    }
+}
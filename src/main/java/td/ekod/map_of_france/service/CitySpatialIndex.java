@@ -0,0 +1,711 @@
+package td.ekod.map_of_france.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Index spatial immuable (k-d tree implicite) des villes chargées en mémoire.
+ * <p>
+ * Les données sont stockées par colonnes et réordonnées selon l'arbre : le nœud
+ * couvrant l'intervalle [lo, hi) se trouve à la position médiane {@code (lo + hi) >>> 1},
+ * son sous-arbre gauche dans [lo, m) et son sous-arbre droit dans [m + 1, hi).
+ * Les bornes d'élagage supposent des données ne traversant pas l'antiméridien.
+ */
+public final class CitySpatialIndex {
+    
+    /** Valeur de région signifiant « aucun filtre ». */
+    public static final String ALL_REGIONS = "TOUTES";
+    
+    private static final byte AXIS_LATITUDE = 0;
+    private static final byte AXIS_LONGITUDE = 1;
+    
+    private static final int ANY_REGION = -1;
+    private static final int UNKNOWN_REGION = -2;
+    static final int NO_POPULATION = -1;
+    
+    private final GeographyService geographyService;
+    
+    private final long[] ids;
+    private final String[] names;
+    private final String[] postalCodes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] latitudesRadians;
+    private final double[] longitudesRadians;
+    private final double[] cosLatitudes;
+    private final int[] populations;
+    private final int[] regionCodes;
+    private final String[] departments;
+    private final byte[] axes;
+    
+    /** Table des régions distinctes, triées ; {@link #regionCodes} y fait référence. */
+    private final String[] regions;
+    
+    /** Identifiants triés et positions correspondantes, pour la recherche par identifiant */
+    private final long[] sortedIds;
+    private final int[] positionsBySortedId;
+    
+    private CitySpatialIndex(GeographyService geographyService, int size, String[] regions) {
+        this.geographyService = geographyService;
+        this.ids = new long[size];
+        this.names = new String[size];
+        this.postalCodes = new String[size];
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.latitudesRadians = new double[size];
+        this.longitudesRadians = new double[size];
+        this.cosLatitudes = new double[size];
+        this.populations = new int[size];
+        this.regionCodes = new int[size];
+        this.departments = new String[size];
+        this.axes = new byte[size];
+        this.regions = regions;
+        this.sortedIds = new long[size];
+        this.positionsBySortedId = new int[size];
+    }
+    
+    /**
+     * Index reconstitué à partir de colonnes déjà ordonnées selon l'arbre
+     */
+    private CitySpatialIndex(GeographyService geographyService, String[] regions, long[] ids, String[] names,
+                             String[] postalCodes, double[] latitudes, double[] longitudes, int[] populations,
+                             int[] regionCodes, String[] departments, byte[] axes) {
+        int size = ids.length;
+        this.geographyService = geographyService;
+        this.ids = ids;
+        this.names = names;
+        this.postalCodes = postalCodes;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.latitudesRadians = new double[size];
+        this.longitudesRadians = new double[size];
+        this.cosLatitudes = new double[size];
+        this.populations = populations;
+        this.regionCodes = regionCodes;
+        this.departments = departments;
+        this.axes = axes;
+        this.regions = regions;
+        this.sortedIds = new long[size];
+        this.positionsBySortedId = new int[size];
+    }
+    
+    /**
+     * Construit l'index à partir des villes données
+     * @param cities
+     * @param geographyService
+     * @return
+     */
+    public static CitySpatialIndex build(List<City> cities, GeographyService geographyService) {
+        int size = cities.size();
+        TreeSet<String> distinctRegions = new TreeSet<>();
+        for (City city : cities) {
+            distinctRegions.add(city.getRegion());
+        }
+        CitySpatialIndex index = new CitySpatialIndex(geographyService, size,
+                distinctRegions.toArray(new String[0]));
+        
+        double[] sourceLatitudes = new double[size];
+        double[] sourceLongitudes = new double[size];
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            sourceLatitudes[i] = cities.get(i).getLatitude();
+            sourceLongitudes[i] = cities.get(i).getLongitude();
+            order[i] = i;
+        }
+        
+        index.buildTree(order, sourceLatitudes, sourceLongitudes, 0, size);
+        
+        for (int position = 0; position < size; position++) {
+            City city = cities.get(order[position]);
+            index.ids[position] = city.getId() != null ? city.getId() : 0L;
+            index.names[position] = city.getName();
+            index.postalCodes[position] = city.getPostalCode();
+            index.latitudes[position] = city.getLatitude();
+            index.longitudes[position] = city.getLongitude();
+            index.populations[position] = city.getPopulation() != null ? city.getPopulation() : NO_POPULATION;
+            index.regionCodes[position] = Arrays.binarySearch(index.regions, city.getRegion());
+            index.departments[position] = city.getDepartment();
+        }
+        index.computeDerivedColumns();
+        return index;
+    }
+    
+    /**
+     * Reconstitue un index à partir de ses colonnes, déjà dans l'ordre de l'arbre
+     * (voir {@link CityDatasetFile}) : seules les colonnes dérivées sont recalculées
+     */
+    static CitySpatialIndex restore(GeographyService geographyService, String[] regions, long[] ids, String[] names,
+                                    String[] postalCodes, double[] latitudes, double[] longitudes, int[] populations,
+                                    int[] regionCodes, String[] departments, byte[] axes) {
+        CitySpatialIndex index = new CitySpatialIndex(geographyService, regions, ids, names, postalCodes,
+                latitudes, longitudes, populations, regionCodes, departments, axes);
+        index.computeDerivedColumns();
+        return index;
+    }
+    
+    /**
+     * Calcule la trigonométrie côté ville, une fois pour toutes, et la table des identifiants triés
+     */
+    private void computeDerivedColumns() {
+        int size = size();
+        for (int position = 0; position < size; position++) {
+            latitudesRadians[position] = Math.toRadians(latitudes[position]);
+            longitudesRadians[position] = Math.toRadians(longitudes[position]);
+            cosLatitudes[position] = Math.cos(latitudesRadians[position]);
+        }
+        
+        Integer[] byId = new Integer[size];
+        for (int position = 0; position < size; position++) {
+            byId[position] = position;
+        }
+        Arrays.sort(byId, (a, b) -> Long.compare(ids[a], ids[b]));
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = ids[byId[i]];
+            positionsBySortedId[i] = byId[i];
+        }
+    }
+    
+    /**
+     * Découpe récursivement [lo, hi) selon l'axe de plus grande étendue
+     */
+    private void buildTree(int[] order, double[] lats, double[] lons, int lo, int hi) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int i = lo; i < hi; i++) {
+            minLat = Math.min(minLat, lats[order[i]]);
+            maxLat = Math.max(maxLat, lats[order[i]]);
+            minLon = Math.min(minLon, lons[order[i]]);
+            maxLon = Math.max(maxLon, lons[order[i]]);
+        }
+        // Un degré de longitude est plus court qu'un degré de latitude hors de l'équateur
+        double lonScale = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        byte axis = (maxLat - minLat) >= (maxLon - minLon) * lonScale ? AXIS_LATITUDE : AXIS_LONGITUDE;
+        
+        int median = (lo + hi) >>> 1;
+        select(order, axis == AXIS_LATITUDE ? lats : lons, lo, hi - 1, median);
+        axes[median] = axis;
+        
+        buildTree(order, lats, lons, lo, median);
+        buildTree(order, lats, lons, median + 1, hi);
+    }
+    
+    /**
+     * Quickselect : place en position k l'élément de rang k selon la clé, les plus petits à gauche
+     */
+    private static void select(int[] order, double[] keys, int left, int right, int k) {
+        while (right > left) {
+            double pivot = keys[order[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[order[i]] < pivot) i++;
+                while (keys[order[j]] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Trouve les villes situées à moins de radiusKm du point donné, sans ordre particulier
+     * @param latitude
+     * @param longitude
+     * @param radiusKm
+     * @param region
+     * @param minPopulation
+     * @return les positions des villes dans l'index
+     */
+    public int[] findWithinRadius(double latitude, double longitude, double radiusKm,
+                                  String region, Integer minPopulation) {
+        int regionCode = resolveRegionCode(region);
+        if (regionCode == UNKNOWN_REGION || size() == 0) {
+            return new int[0];
+        }
+        RadiusSearch search = new RadiusSearch(new GeoPoint(latitude, longitude), radiusKm, regionCode, minPopulation);
+        search.visit(0, size());
+        return Arrays.copyOf(search.positions, search.count);
+    }
+    
+    /**
+     * Trouve les villes dont les coordonnées sont dans l'emprise donnée, bornes incluses
+     * @param minLat
+     * @param maxLat
+     * @param minLon
+     * @param maxLon
+     * @return les positions des villes dans l'index, sans ordre particulier
+     */
+    public int[] findWithinBounds(double minLat, double maxLat, double minLon, double maxLon) {
+        BoundsSearch search = new BoundsSearch(minLat, maxLat, minLon, maxLon);
+        search.visit(0, size());
+        return Arrays.copyOf(search.positions, search.count);
+    }
+    
+    /**
+     * Trouve les villes situées dans le polygone : présélection par l'emprise du polygone,
+     * puis test d'appartenance sur les seules villes de l'emprise
+     * @param polygon null pour ne filtrer que par attributs
+     * @param region
+     * @param department null ou vide pour tous les départements
+     * @param minPopulation
+     * @return les positions des villes dans l'index, sans ordre particulier
+     */
+    public int[] findWithinPolygon(GeoPolygon polygon, String region, String department, Integer minPopulation) {
+        int regionCode = resolveRegionCode(region);
+        if (regionCode == UNKNOWN_REGION || size() == 0) {
+            return new int[0];
+        }
+        int[] positions;
+        if (polygon != null) {
+            positions = findWithinBounds(polygon.getMinLatitude(), polygon.getMaxLatitude(),
+                    polygon.getMinLongitude(), polygon.getMaxLongitude());
+        } else {
+            positions = new int[size()];
+            Arrays.setAll(positions, position -> position);
+        }
+        
+        // Filtre en place : attributs d'abord, test d'appartenance ensuite
+        boolean anyDepartment = department == null || department.isBlank();
+        int count = 0;
+        for (int position : positions) {
+            if (matches(position, regionCode, minPopulation)
+                    && (anyDepartment || department.equalsIgnoreCase(departments[position]))
+                    && (polygon == null || polygon.contains(latitudes[position], longitudes[position]))) {
+                positions[count++] = position;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+    
+    /**
+     * Trie des positions par population décroissante, les populations inconnues en dernier
+     * et, à population égale, par position
+     * @param positions
+     * @return un nouveau tableau trié
+     */
+    public int[] sortByPopulation(int[] positions) {
+        // Population (décalée pour rester positive) et position empaquetées dans un long
+        long[] ranked = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            int population = populations[positions[i]];
+            long key = population != NO_POPULATION ? population + 1L : 0L;
+            ranked[i] = ((Long.MAX_VALUE >>> 31) - key) << 31 | positions[i];
+        }
+        Arrays.sort(ranked);
+        int[] sorted = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            sorted[i] = (int) (ranked[i] & Integer.MAX_VALUE);
+        }
+        return sorted;
+    }
+    
+    /**
+     * Trouve les k villes les plus proches du point donné (à moins de maxDistanceKm),
+     * triées par distance croissante puis par population décroissante
+     * @param latitude
+     * @param longitude
+     * @param k
+     * @param maxDistanceKm
+     * @param region
+     * @param minPopulation
+     * @return les positions des villes dans l'index
+     */
+    public int[] findNearest(double latitude, double longitude, int k, double maxDistanceKm,
+                             String region, Integer minPopulation) {
+        SearchBuffers buffers = new SearchBuffers();
+        int count = findNearest(latitude, longitude, k, maxDistanceKm, region, minPopulation, buffers);
+        return Arrays.copyOf(buffers.positions, count);
+    }
+    
+    /**
+     * Comme {@link #findNearest(double, double, int, double, String, Integer)}, sans allocation
+     * de tableaux : les positions et leurs distances exactes sont écrites dans les tampons
+     * @param buffers
+     * @return le nombre de villes trouvées, aux indices [0, n) des tampons
+     */
+    int findNearest(double latitude, double longitude, int k, double maxDistanceKm,
+                    String region, Integer minPopulation, SearchBuffers buffers) {
+        int regionCode = resolveRegionCode(region);
+        if (regionCode == UNKNOWN_REGION || size() == 0 || k <= 0) {
+            return 0;
+        }
+        NearestSearch search = new NearestSearch(new GeoPoint(latitude, longitude), k, maxDistanceKm,
+                regionCode, minPopulation, buffers);
+        search.visit(0, size());
+        return search.sort();
+    }
+    
+    /**
+     * Sélectionne parmi des candidats déjà filtrés (région, population) les k plus proches
+     * du point donné, dans le même ordre que {@link #findNearest}
+     * @param candidates positions dans l'index
+     * @param latitude
+     * @param longitude
+     * @param k
+     * @param maxDistanceKm
+     * @return les positions des villes dans l'index
+     */
+    public int[] findNearestAmong(int[] candidates, double latitude, double longitude, int k, double maxDistanceKm) {
+        SearchBuffers buffers = new SearchBuffers();
+        int count = findNearestAmong(candidates, latitude, longitude, k, maxDistanceKm, buffers);
+        return Arrays.copyOf(buffers.positions, count);
+    }
+    
+    /**
+     * Comme {@link #findNearestAmong(int[], double, double, int, double)}, résultats écrits dans les tampons
+     * @param buffers
+     * @return le nombre de villes trouvées, aux indices [0, n) des tampons
+     */
+    int findNearestAmong(int[] candidates, double latitude, double longitude, int k, double maxDistanceKm,
+                         SearchBuffers buffers) {
+        if (candidates.length == 0 || k <= 0) {
+            return 0;
+        }
+        NearestSearch search = new NearestSearch(new GeoPoint(latitude, longitude), k, maxDistanceKm,
+                ANY_REGION, null, buffers);
+        for (int position : candidates) {
+            search.consider(position);
+        }
+        return search.sort();
+    }
+    
+    private int resolveRegionCode(String region) {
+        if (region == null || ALL_REGIONS.equals(region)) {
+            return ANY_REGION;
+        }
+        int code = Arrays.binarySearch(regions, region);
+        return code >= 0 ? code : UNKNOWN_REGION;
+    }
+    
+    private boolean matches(int position, int regionCode, Integer minPopulation) {
+        if (regionCode != ANY_REGION && regionCodes[position] != regionCode) {
+            return false;
+        }
+        // Même sémantique que SQL : une population inconnue ne satisfait aucun seuil
+        return minPopulation == null
+                || (populations[position] != NO_POPULATION && populations[position] >= minPopulation);
+    }
+    
+    private boolean isClearlyBeyond(GeoPoint query, int position, double maxTerm) {
+        return geographyService.isClearlyBeyond(query,
+                latitudesRadians[position], longitudesRadians[position], cosLatitudes[position], maxTerm);
+    }
+    
+    /**
+     * Distance exacte en kilomètres entre le point et la ville, calculée par {@link GeographyService}
+     */
+    double distance(GeoPoint query, int position) {
+        return geographyService.calculateExactHaversineDistance(query,
+                latitudesRadians[position], longitudesRadians[position], cosLatitudes[position]);
+    }
+    
+    /**
+     * Vrai si la ville a, à la distance (ou au score) donné, l'emporte sur b : plus proche,
+     * ou aussi proche et plus peuplée, comme dans {@link #findNearest}
+     */
+    boolean isBetter(int a, double distanceA, int b, double distanceB) {
+        return distanceA < distanceB || (distanceA == distanceB && populations[a] > populations[b]);
+    }
+    
+    /**
+     * Minore la distance entre le point et tout point situé de l'autre côté du plan de coupe
+     */
+    private double splitPlaneLowerBound(GeoPoint query, int position) {
+        if (axes[position] == AXIS_LATITUDE) {
+            return GeographyService.EARTH_RADIUS_KM * Math.abs(query.getLatitudeRadians() - latitudesRadians[position]);
+        }
+        double deltaLon = Math.abs(query.getLongitudeRadians() - longitudesRadians[position]);
+        if (deltaLon >= Math.PI / 2) {
+            return 0.0;
+        }
+        // Distance minimale au méridien de coupe
+        return GeographyService.EARTH_RADIUS_KM * Math.asin(query.getCosLatitude() * Math.sin(deltaLon));
+    }
+    
+    private boolean isLeftOfSplit(GeoPoint query, int position) {
+        return axes[position] == AXIS_LATITUDE
+                ? query.getLatitude() < latitudes[position]
+                : query.getLongitude() < longitudes[position];
+    }
+    
+    private final class RadiusSearch {
+        private final GeoPoint query;
+        private final double radiusKm;
+        private final double radiusTerm;
+        private final int regionCode;
+        private final Integer minPopulation;
+        private int[] positions = new int[16];
+        private int count;
+        
+        RadiusSearch(GeoPoint query, double radiusKm, int regionCode, Integer minPopulation) {
+            this.query = query;
+            this.radiusKm = radiusKm;
+            this.radiusTerm = geographyService.calculateHaversineTerm(radiusKm);
+            this.regionCode = regionCode;
+            this.minPopulation = minPopulation;
+        }
+        
+        void visit(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int m = (lo + hi) >>> 1;
+            if (matches(m, regionCode, minPopulation)
+                    && !isClearlyBeyond(query, m, radiusTerm)
+                    && distance(query, m) <= radiusKm) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = m;
+            }
+            boolean left = isLeftOfSplit(query, m);
+            visit(left ? lo : m + 1, left ? m : hi);
+            if (splitPlaneLowerBound(query, m) <= radiusKm) {
+                visit(left ? m + 1 : lo, left ? hi : m);
+            }
+        }
+    }
+    
+    /**
+     * Recherche par emprise : le sous-arbre gauche contient les valeurs inférieures ou
+     * égales à celle du nœud sur son axe, le droit les valeurs supérieures ou égales
+     */
+    private final class BoundsSearch {
+        private final double minLat;
+        private final double maxLat;
+        private final double minLon;
+        private final double maxLon;
+        private int[] positions = new int[16];
+        private int count;
+        
+        BoundsSearch(double minLat, double maxLat, double minLon, double maxLon) {
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+        }
+        
+        void visit(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int m = (lo + hi) >>> 1;
+            double latitude = latitudes[m];
+            double longitude = longitudes[m];
+            if (latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = m;
+            }
+            double split = axes[m] == AXIS_LATITUDE ? latitude : longitude;
+            double min = axes[m] == AXIS_LATITUDE ? minLat : minLon;
+            double max = axes[m] == AXIS_LATITUDE ? maxLat : maxLon;
+            if (min <= split) {
+                visit(lo, m);
+            }
+            if (max >= split) {
+                visit(m + 1, hi);
+            }
+        }
+    }
+    
+    /**
+     * Recherche des k plus proches voisins avec un tas max borné : la racine est
+     * le moins bon des candidats retenus et sert de seuil d'élagage. Le tas est
+     * rangé dans les tampons fournis
+     */
+    private final class NearestSearch {
+        private final GeoPoint query;
+        private final double maxDistanceKm;
+        private final int regionCode;
+        private final Integer minPopulation;
+        private final int[] heapPositions;
+        private final double[] heapDistances;
+        private final int capacity;
+        private int count;
+        private double threshold;
+        private double thresholdTerm;
+        
+        NearestSearch(GeoPoint query, int k, double maxDistanceKm, int regionCode, Integer minPopulation,
+                      SearchBuffers buffers) {
+            this.query = query;
+            this.maxDistanceKm = maxDistanceKm;
+            this.regionCode = regionCode;
+            this.minPopulation = minPopulation;
+            this.capacity = Math.min(k, size());
+            buffers.ensureCapacity(capacity);
+            this.heapPositions = buffers.positions;
+            this.heapDistances = buffers.distances;
+            this.threshold = maxDistanceKm;
+            this.thresholdTerm = geographyService.calculateHaversineTerm(maxDistanceKm);
+        }
+        
+        /** Le seuil ne se resserre que lorsque le tas est plein et que sa racine change */
+        private void updateThreshold() {
+            if (count == capacity && heapDistances[0] < threshold) {
+                threshold = Math.min(maxDistanceKm, heapDistances[0]);
+                thresholdTerm = geographyService.calculateHaversineTerm(threshold);
+            }
+        }
+        
+        void visit(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int m = (lo + hi) >>> 1;
+            if (matches(m, regionCode, minPopulation)) {
+                consider(m);
+            }
+            boolean left = isLeftOfSplit(query, m);
+            visit(left ? lo : m + 1, left ? m : hi);
+            // À distance égale, une ville plus peuplée peut encore l'emporter : on n'élague que strictement
+            if (splitPlaneLowerBound(query, m) <= threshold) {
+                visit(left ? m + 1 : lo, left ? hi : m);
+            }
+        }
+        
+        void consider(int position) {
+            if (!isClearlyBeyond(query, position, thresholdTerm)) {
+                double d = distance(query, position);
+                if (d <= threshold) {
+                    offer(position, d);
+                    updateThreshold();
+                }
+            }
+        }
+        
+        /** Vrai si a est moins bon que b (plus loin, ou aussi loin et moins peuplé) */
+        private boolean worse(int a, double distanceA, int b, double distanceB) {
+            return distanceA > distanceB || (distanceA == distanceB && populations[a] < populations[b]);
+        }
+        
+        private void offer(int position, double d) {
+            if (count < capacity) {
+                int i = count++;
+                heapPositions[i] = position;
+                heapDistances[i] = d;
+                siftUp(i);
+            } else if (worse(heapPositions[0], heapDistances[0], position, d)) {
+                heapPositions[0] = position;
+                heapDistances[0] = d;
+                siftDown(0, count);
+            }
+        }
+        
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(heapPositions[i], heapDistances[i], heapPositions[parent], heapDistances[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+        
+        private void siftDown(int i, int end) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < end && worse(heapPositions[left], heapDistances[left], heapPositions[worst], heapDistances[worst])) {
+                    worst = left;
+                }
+                if (right < end && worse(heapPositions[right], heapDistances[right], heapPositions[worst], heapDistances[worst])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+        
+        private void swap(int i, int j) {
+            int position = heapPositions[i];
+            heapPositions[i] = heapPositions[j];
+            heapPositions[j] = position;
+            double d = heapDistances[i];
+            heapDistances[i] = heapDistances[j];
+            heapDistances[j] = d;
+        }
+        
+        /** Trie le tas en place (tri par tas), du meilleur au moins bon, et renvoie sa taille */
+        int sort() {
+            for (int end = count - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * Nombre de villes indexées
+     * @return
+     */
+    public int size() {
+        return ids.length;
+    }
+    
+    /**
+     * Régions distinctes, triées par ordre alphabétique
+     * @return
+     */
+    public List<String> getRegions() {
+        return List.of(regions);
+    }
+    
+    /**
+     * Position de la ville d'identifiant donné
+     * @param id
+     * @return la position dans l'index, -1 si aucune ville n'a cet identifiant
+     */
+    public int findPosition(long id) {
+        int i = Arrays.binarySearch(sortedIds, id);
+        return i >= 0 ? positionsBySortedId[i] : -1;
+    }
+    
+    public long getId(int position) { return ids[position]; }
+    
+    public String getName(int position) { return names[position]; }
+    
+    public String getPostalCode(int position) { return postalCodes[position]; }
+    
+    public double getLatitude(int position) { return latitudes[position]; }
+    
+    public double getLongitude(int position) { return longitudes[position]; }
+    
+    public Integer getPopulation(int position) {
+        return populations[position] != NO_POPULATION ? populations[position] : null;
+    }
+    
+    public String getRegion(int position) { return regions[regionCodes[position]]; }
+    
+    public String getDepartment(int position) { return departments[position]; }
+    
+    /** Code de la ville dans la table des régions ({@link #getRegions()}) */
+    int getRegionCode(int position) { return regionCodes[position]; }
+    
+    /** Axe de découpage du nœud à cette position */
+    byte getAxis(int position) { return axes[position]; }
+}
@@ -0,0 +1,113 @@
+package td.ekod.map_of_france.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur CSV en flux conforme à la RFC 4180 : champs entre guillemets,
+ * guillemets doublés ("") et retours à la ligne à l'intérieur des guillemets
+ */
+public class CsvReader implements Closeable {
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferLength;
+    private int bufferPosition;
+    private int lineNumber;
+    
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+    
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+    
+    /**
+     * Lit l'enregistrement suivant
+     * @return les champs de l'enregistrement, ou null en fin de flux
+     * @throws IOException si la lecture échoue ou si un guillemet n'est pas refermé
+     */
+    public String[] readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        lineNumber++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Guillemet non refermé à la ligne " + lineNumber);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n' && next != -1) {
+                        bufferPosition--;
+                    }
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+    
+    /**
+     * Numéro de la dernière ligne lue (1 pour la première)
+     * @return
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+    
+    private int read() throws IOException {
+        if (bufferPosition == bufferLength) {
+            bufferLength = reader.read(buffer, 0, buffer.length);
+            bufferPosition = 0;
+            if (bufferLength <= 0) {
+                bufferLength = 0;
+                return -1;
+            }
+        }
+        return buffer[bufferPosition++];
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,30 +1,64 @@
 package td.ekod.map_of_france.service;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import td.ekod.map_of_france.entity.City;
 import td.ekod.map_of_france.repository.CityRepository;
 
 /**
- * Service pour charger les données des villes depuis le fichier CSV
+ * Service pour charger les données des villes depuis le fichier CSV dans la base
+ * (sans objet en profil « snapshot », où le fichier est lu par {@link SnapshotCitySource})
  */
 @Service
+@Profile("!" + SnapshotCitySource.PROFILE)
 public class DataLoaderService implements CommandLineRunner {
     
     private static final Logger logger = LoggerFactory.getLogger(DataLoaderService.class);
     
+    private static final String INSERT_CITY_SQL = """
+        INSERT INTO cities (name, postal_code, latitude, longitude, population, region, department)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+    
     @Autowired
     private CityRepository cityRepository;
     
+    @Autowired
+    private CityIndexService cityIndexService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.data-loader.batch-size:1000}")
+    private int batchSize;
+    
+    private Timer batchTimer;
+    
     @Override
     public void run(String... args) throws Exception {
         // Vérifier si des données existent déjà
@@ -33,79 +67,100 @@ public class DataLoaderService implements CommandLineRunner {
             return;
         }
         
-        logger.info("Début du chargement des données depuis fr.csv");
+        logger.info("Début du chargement des données depuis fr.csv (lots de {} villes)", batchSize);
         
         try {
-            ClassPathResource resource = new ClassPathResource("fr.csv");
+            // Tout l'import se fait dans une seule transaction
+            batchTimer = Timer.builder("cities.import.batch")
+                    .description("Insertion JDBC d'un lot de villes")
+                    .register(meterRegistry);
+            Timer.builder("cities.import")
+                    .description("Import complet du fichier CSV")
+                    .register(meterRegistry)
+                    .record(() -> transactionTemplate.executeWithoutResult(status -> importCities()));
+            cityIndexService.refresh();
+        } catch (Exception e) {
+            logger.error("Erreur lors du chargement du fichier CSV", e);
+        }
+    }
+    
+    /**
+     * Lit le fichier CSV en flux et insère les villes par lots JDBC
+     */
+    private void importCities() {
+        ClassPathResource resource = new ClassPathResource("fr.csv");
+        long start = System.nanoTime();
+        
+        try (CsvReader reader = new CsvReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
             
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
-                
-                String line;
-                int lineNumber = 0;
-                int loadedCount = 0;
-                
-                // Lire l'en-tête
-                String header = reader.readLine();
-                if (header == null || !header.startsWith("name,latitude,longitude,region,population")) {
-                    logger.warn("Format de fichier CSV inattendu. En-tête: {}", header);
-                }
-                lineNumber++;
+            int loadedCount = 0;
+            int recordCount = 0;
+            List<City> batch = new ArrayList<>(batchSize);
+            
+            // Lire l'en-tête
+            String[] header = reader.readRecord();
+            if (!CityCsv.isExpectedHeader(header)) {
+                logger.warn("Format de fichier CSV inattendu. En-tête: {}", header == null ? null : String.join(",", header));
+            }
+            
+            // Lire les données
+            String[] fields;
+            while ((fields = reader.readRecord()) != null) {
+                recordCount++;
                 
-                // Lire les données
-                while ((line = reader.readLine()) != null) {
-                    lineNumber++;
-                    
-                    try {
-                        String[] fields = parseCsvLine(line);
-                        
-                        if (fields.length >= 5) {
-                            String name = fields[0].trim();
-                            double latitude = Double.parseDouble(fields[1].trim());
-                            double longitude = Double.parseDouble(fields[2].trim());
-                            String region = fields[3].trim();
-                            int population = Integer.parseInt(fields[4].trim());
-                            
-                            String postalCode = "N/A";
-                            String department = getDepartmentFromPostalCode(postalCode);
-                            
-                            City city = new City(name, postalCode, latitude, longitude, population, region, department);
-                            cityRepository.save(city);
-                            loadedCount++;
-                            
-                            if (loadedCount % 100 == 0) {
-                                logger.debug("Chargé {} villes...", loadedCount);
-                            }
-                        } else {
-                            logger.warn("Ligne {} ignorée (format invalide): {}", lineNumber, line);
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Erreur lors du traitement de la ligne {}: {} - {}", lineNumber, line, e.getMessage());
+                try {
+                    if (fields.length >= CityCsv.FIELD_COUNT) {
+                        batch.add(CityCsv.parse(fields));
+                    } else {
+                        logger.warn("Ligne {} ignorée (format invalide): {}", reader.getLineNumber(), String.join(",", fields));
                     }
+                } catch (Exception e) {
+                    logger.warn("Erreur lors du traitement de la ligne {}: {} - {}",
+                            reader.getLineNumber(), String.join(",", fields), e.getMessage());
                 }
                 
-                logger.info("Chargement terminé: {} villes chargées depuis {} lignes", loadedCount, lineNumber - 1);
+                if (batch.size() == batchSize) {
+                    loadedCount += insertBatch(batch);
+                    logger.debug("Chargé {} villes ({} villes/s)...", loadedCount, rate(loadedCount, start));
+                }
             }
-        } catch (Exception e) {
-            logger.error("Erreur lors du chargement du fichier CSV", e);
+            
+            if (!batch.isEmpty()) {
+                loadedCount += insertBatch(batch);
+            }
+            
+            logger.info("Chargement terminé: {} villes chargées depuis {} lignes en {} ms ({} villes/s)",
+                    loadedCount, recordCount, (System.nanoTime() - start) / 1_000_000, rate(loadedCount, start));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
     
     /**
-     * Parse une ligne CSV en gérant les virgules dans les guillemets
+     * Insère un lot de villes en un seul aller-retour JDBC puis vide le lot
      */
-    private String[] parseCsvLine(String line) {
-        // Simple parsing - peut être amélioré pour gérer les guillemets
-        return line.split(",");
+    private int insertBatch(List<City> batch) {
+        batchTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_CITY_SQL, batch, batch.size(), (ps, city) -> {
+            ps.setString(1, city.getName());
+            ps.setString(2, city.getPostalCode());
+            ps.setDouble(3, city.getLatitude());
+            ps.setDouble(4, city.getLongitude());
+            if (city.getPopulation() != null) {
+                ps.setInt(5, city.getPopulation());
+            } else {
+                ps.setNull(5, Types.INTEGER);
+            }
+            ps.setString(6, city.getRegion());
+            ps.setString(7, city.getDepartment());
+        }));
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
     }
     
-    /**
-     * Extrait le département à partir du code postal
-     */
-    private String getDepartmentFromPostalCode(String postalCode) {
-        if (postalCode != null && postalCode.length() >= 2 && !postalCode.equals("N/A")) {
-            return postalCode.substring(0, 2);
-        }
-        return "Inconnu";
+    private static long rate(int count, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return count * 1_000_000_000L / elapsedNanos;
     }
 }
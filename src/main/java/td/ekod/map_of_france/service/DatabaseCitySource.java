@@ -0,0 +1,34 @@
+package td.ekod.map_of_france.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import td.ekod.map_of_france.entity.City;
+import td.ekod.map_of_france.repository.CityRepository;
+
+/**
+ * Villes lues dans la base de données, alimentée par {@link DataLoaderService}
+ */
+@Service
+@Profile("!" + SnapshotCitySource.PROFILE)
+public class DatabaseCitySource implements CitySource {
+    
+    @Autowired
+    private CityRepository cityRepository;
+    
+    @Override
+    public List<City> loadCities() {
+        return cityRepository.findAll();
+    }
+    
+    /**
+     * Plus proches voisins par l'index GiST PostGIS (opérateur KNN &lt;-&gt;) s'il existe
+     */
+    @Override
+    public List<City> findNearestCities(double latitude, double longitude, int limit) {
+        return cityRepository.findNearestCities(latitude, longitude, limit);
+    }
+}
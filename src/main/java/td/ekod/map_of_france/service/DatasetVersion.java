@@ -0,0 +1,74 @@
+package td.ekod.map_of_france.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Version du jeu de villes indexé, pour la validation des caches HTTP.
+ * <p>
+ * L'empreinte est calculée sur le contenu de l'index : elle change à chaque modification
+ * des villes et reste la même d'une instance à l'autre pour des données identiques. Aucune
+ * date n'en fait partie : celle de la construction de l'index changerait à chaque démarrage
+ * et d'une réplique à l'autre pour les mêmes données.
+ * @param hash empreinte du contenu (SHA-256 tronqué, en hexadécimal)
+ */
+public record DatasetVersion(String hash) {
+    
+    private static final int HASH_BYTES = 12;
+    
+    /**
+     * Calcule la version de l'index
+     * @param index
+     * @return
+     */
+    public static DatasetVersion of(CitySpatialIndex index) {
+        MessageDigest digest = sha256();
+        ByteBuffer record = ByteBuffer.allocate(Long.BYTES + 2 * Double.BYTES + Integer.BYTES);
+        for (int position = 0; position < index.size(); position++) {
+            Integer population = index.getPopulation(position);
+            record.clear();
+            record.putLong(index.getId(position))
+                    .putDouble(index.getLatitude(position))
+                    .putDouble(index.getLongitude(position))
+                    .putInt(population != null ? population : CitySpatialIndex.NO_POPULATION);
+            digest.update(record.array());
+            update(digest, index.getName(position));
+            update(digest, index.getPostalCode(position));
+            update(digest, index.getRegion(position));
+            update(digest, index.getDepartment(position));
+        }
+        byte[] hash = digest.digest();
+        return new DatasetVersion(HexFormat.of().formatHex(hash, 0, HASH_BYTES));
+    }
+    
+    /**
+     * ETag fort d'une réponse calculée à partir de cette version ; les représentations
+     * négociées sur l'en-tête Accept reçoivent des ETag distincts
+     * @param accept en-tête Accept de la requête, null s'il est absent
+     * @return
+     */
+    public String eTag(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "\"" + hash + "\"";
+        }
+        return "\"" + hash + "-" + Integer.toHexString(accept.hashCode()) + "\"";
+    }
+    
+    private static void update(MessageDigest digest, String value) {
+        // Longueur puis octets : deux champs consécutifs ne peuvent pas se confondre
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value != null ? bytes.length : -1).array());
+        digest.update(bytes);
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
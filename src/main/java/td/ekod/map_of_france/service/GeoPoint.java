@@ -0,0 +1,32 @@
+package td.ekod.map_of_france.service;
+
+/**
+ * Point géographique dont les radians et le cosinus de la latitude sont
+ * calculés une seule fois, pour les calculs de distance répétés
+ */
+public final class GeoPoint {
+    
+    private final double latitude;
+    private final double longitude;
+    private final double latitudeRadians;
+    private final double longitudeRadians;
+    private final double cosLatitude;
+    
+    public GeoPoint(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.latitudeRadians = Math.toRadians(latitude);
+        this.longitudeRadians = Math.toRadians(longitude);
+        this.cosLatitude = Math.cos(latitudeRadians);
+    }
+    
+    public double getLatitude() { return latitude; }
+    
+    public double getLongitude() { return longitude; }
+    
+    public double getLatitudeRadians() { return latitudeRadians; }
+    
+    public double getLongitudeRadians() { return longitudeRadians; }
+    
+    public double getCosLatitude() { return cosLatitude; }
+}
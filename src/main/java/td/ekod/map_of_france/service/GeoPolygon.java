@@ -0,0 +1,259 @@
+package td.ekod.map_of_france.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Polygone géographique immuable (GeoJSON Polygon ou MultiPolygon) et test d'appartenance d'un point.
+ * <p>
+ * Toutes les arêtes non horizontales des anneaux (extérieurs et trous) sont rangées dans une table
+ * découpée en bandes de latitude : un point ne teste que les arêtes de sa bande, et la règle pair-impair
+ * sur l'ensemble des anneaux exclut les trous. Les coordonnées sont traitées comme planes
+ * (latitude, longitude), ce qui correspond au tracé du polygone sur la carte.
+ * <p>
+ * Une arête est copiée dans chaque bande qu'elle traverse : le nombre de bandes est choisi d'après
+ * la somme des hauteurs des arêtes pour que la table reste sous {@link #MAX_BAND_ENTRIES} entrées,
+ * et une géométrie dont les bandes restent trop chargées (zigzag sur toute sa hauteur) est refusée.
+ */
+public final class GeoPolygon {
+    
+    /** Nombre maximal de sommets accepté pour une géométrie */
+    public static final int MAX_VERTICES = 100_000;
+    
+    private static final int MAX_BANDS = 1024;
+    
+    /** Nombre maximal d'entrées (arête, bande) de la table, soit 4 Mo */
+    static final int MAX_BAND_ENTRIES = 1_000_000;
+    
+    /** Nombre moyen maximal d'arêtes par bande, que chaque test d'appartenance parcourt */
+    static final int MAX_EDGES_PER_BAND = 10_000;
+    
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+    private final int vertexCount;
+    
+    /** Arête i : de (edgeMinLats[i], edgeLons[i]) vers le haut, longitude = edgeLons[i] + (lat - edgeMinLats[i]) × edgeSlopes[i] */
+    private final double[] edgeMinLats;
+    private final double[] edgeMaxLats;
+    private final double[] edgeLons;
+    private final double[] edgeSlopes;
+    
+    /** Arêtes de la bande b : bandEdges[bandStarts[b]] à bandEdges[bandStarts[b + 1] - 1] */
+    private final int[] bandStarts;
+    private final int[] bandEdges;
+    private final double bandHeight;
+    
+    /**
+     * @param rings anneaux sous forme {lat0, lon0, lat1, lon1, …}, fermés implicitement
+     */
+    private GeoPolygon(List<double[]> rings) {
+        double south = Double.MAX_VALUE, north = -Double.MAX_VALUE;
+        double west = Double.MAX_VALUE, east = -Double.MAX_VALUE;
+        int vertices = 0;
+        for (double[] ring : rings) {
+            for (int i = 0; i < ring.length; i += 2) {
+                south = Math.min(south, ring[i]);
+                north = Math.max(north, ring[i]);
+                west = Math.min(west, ring[i + 1]);
+                east = Math.max(east, ring[i + 1]);
+            }
+            vertices += ring.length / 2;
+        }
+        this.minLat = south;
+        this.maxLat = north;
+        this.minLon = west;
+        this.maxLon = east;
+        this.vertexCount = vertices;
+        
+        // Table des arêtes, orientées vers le nord ; les arêtes horizontales ne croisent aucun rayon
+        double[] minLats = new double[vertices];
+        double[] maxLats = new double[vertices];
+        double[] lons = new double[vertices];
+        double[] slopes = new double[vertices];
+        int edges = 0;
+        for (double[] ring : rings) {
+            int n = ring.length / 2;
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                double lat1 = ring[2 * i], lon1 = ring[2 * i + 1];
+                double lat2 = ring[2 * j], lon2 = ring[2 * j + 1];
+                if (lat1 == lat2) {
+                    continue;
+                }
+                boolean up = lat1 < lat2;
+                minLats[edges] = up ? lat1 : lat2;
+                maxLats[edges] = up ? lat2 : lat1;
+                lons[edges] = up ? lon1 : lon2;
+                slopes[edges] = (lon2 - lon1) / (lat2 - lat1);
+                edges++;
+            }
+        }
+        this.edgeMinLats = minLats;
+        this.edgeMaxLats = maxLats;
+        this.edgeLons = lons;
+        this.edgeSlopes = slopes;
+        
+        // Bandes de latitude de même hauteur, chaque arête rangée dans toutes celles qu'elle traverse :
+        // une arête couvrant la fraction f de la hauteur occupe au plus f × bandes + 2 bandes
+        double spans = 0;
+        for (int e = 0; e < edges; e++) {
+            spans += (maxLats[e] - minLats[e]) / (maxLat - minLat);
+        }
+        int bands = Math.max(1, Math.min(edges, MAX_BANDS));
+        if (spans > 0) {
+            bands = (int) Math.max(1, Math.min(bands, (MAX_BAND_ENTRIES - 2.0 * edges) / spans));
+        }
+        this.bandHeight = (maxLat - minLat) / bands;
+        int[] starts = new int[bands + 1];
+        for (int e = 0; e < edges; e++) {
+            for (int b = band(minLats[e], bands); b <= band(maxLats[e], bands); b++) {
+                starts[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            starts[b + 1] += starts[b];
+        }
+        if (starts[bands] > (long) MAX_EDGES_PER_BAND * bands) {
+            throw new IllegalArgumentException("Géométrie trop complexe : trop d'arêtes traversent les mêmes latitudes");
+        }
+        int[] fill = Arrays.copyOf(starts, bands);
+        int[] bandEdgeIndexes = new int[starts[bands]];
+        for (int e = 0; e < edges; e++) {
+            for (int b = band(minLats[e], bands); b <= band(maxLats[e], bands); b++) {
+                bandEdgeIndexes[fill[b]++] = e;
+            }
+        }
+        this.bandStarts = starts;
+        this.bandEdges = bandEdgeIndexes;
+    }
+    
+    /**
+     * Lit une géométrie GeoJSON : Polygon, MultiPolygon, ou Feature portant l'une d'elles.
+     * Les positions sont [longitude, latitude] ; les anneaux peuvent être fermés ou non
+     * @param geoJson
+     * @return
+     * @throws IllegalArgumentException si la géométrie est absente, d'un autre type ou mal formée
+     */
+    public static GeoPolygon fromGeoJson(JsonNode geoJson) {
+        if (geoJson == null || !geoJson.isObject()) {
+            throw new IllegalArgumentException("La géométrie doit être un objet GeoJSON");
+        }
+        String type = geoJson.path("type").asText();
+        if ("Feature".equals(type)) {
+            return fromGeoJson(geoJson.get("geometry"));
+        }
+        JsonNode coordinates = geoJson.get("coordinates");
+        if (coordinates == null || !coordinates.isArray()) {
+            throw new IllegalArgumentException("La géométrie doit avoir des coordonnées");
+        }
+        
+        List<double[]> rings = new ArrayList<>();
+        switch (type) {
+            case "Polygon" -> readPolygon(coordinates, rings);
+            case "MultiPolygon" -> {
+                if (coordinates.isEmpty()) {
+                    throw new IllegalArgumentException("Un MultiPolygon doit contenir au moins un polygone");
+                }
+                for (JsonNode polygon : coordinates) {
+                    readPolygon(polygon, rings);
+                }
+            }
+            default -> throw new IllegalArgumentException(
+                    "Type de géométrie non pris en charge: " + type + " (Polygon ou MultiPolygon attendu)");
+        }
+        return new GeoPolygon(rings);
+    }
+    
+    private static void readPolygon(JsonNode polygon, List<double[]> rings) {
+        if (!polygon.isArray() || polygon.isEmpty()) {
+            throw new IllegalArgumentException("Un polygone doit contenir au moins un anneau");
+        }
+        int vertices = rings.stream().mapToInt(ring -> ring.length / 2).sum();
+        for (JsonNode ring : polygon) {
+            double[] points = readRing(ring);
+            vertices += points.length / 2;
+            if (vertices > MAX_VERTICES) {
+                throw new IllegalArgumentException("La géométrie ne peut pas dépasser " + MAX_VERTICES + " sommets");
+            }
+            rings.add(points);
+        }
+    }
+    
+    private static double[] readRing(JsonNode ring) {
+        if (!ring.isArray()) {
+            throw new IllegalArgumentException("Un anneau doit être une liste de positions");
+        }
+        int n = ring.size();
+        // Un anneau GeoJSON répète son premier point à la fin : la fermeture est implicite ici
+        if (n > 1 && ring.get(0).equals(ring.get(n - 1))) {
+            n--;
+        }
+        if (n < 3) {
+            throw new IllegalArgumentException("Un anneau doit avoir au moins 3 sommets distincts");
+        }
+        double[] points = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            JsonNode position = ring.get(i);
+            if (!position.isArray() || position.size() < 2
+                    || !position.get(0).isNumber() || !position.get(1).isNumber()) {
+                throw new IllegalArgumentException("Une position doit être [longitude, latitude]");
+            }
+            double lon = position.get(0).asDouble();
+            double lat = position.get(1).asDouble();
+            if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+                throw new IllegalArgumentException("Position hors limites: [" + lon + ", " + lat + "]");
+            }
+            points[2 * i] = lat;
+            points[2 * i + 1] = lon;
+        }
+        return points;
+    }
+    
+    /**
+     * Vrai si le point est à l'intérieur du polygone (hors des trous)
+     * @param latitude
+     * @param longitude
+     * @return
+     */
+    public boolean contains(double latitude, double longitude) {
+        if (latitude < minLat || latitude > maxLat || longitude < minLon || longitude > maxLon) {
+            return false;
+        }
+        int bands = bandStarts.length - 1;
+        int b = band(latitude, bands);
+        boolean inside = false;
+        // Rayon vers l'est : on compte les arêtes traversées, intervalle [min, max[ pour ne compter un sommet qu'une fois
+        for (int i = bandStarts[b]; i < bandStarts[b + 1]; i++) {
+            int e = bandEdges[i];
+            if (latitude >= edgeMinLats[e] && latitude < edgeMaxLats[e]
+                    && longitude < edgeLons[e] + (latitude - edgeMinLats[e]) * edgeSlopes[e]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+    
+    private int band(double latitude, int bands) {
+        if (bandHeight == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(bands - 1, (int) ((latitude - minLat) / bandHeight)));
+    }
+    
+    public double getMinLatitude() { return minLat; }
+    
+    public double getMaxLatitude() { return maxLat; }
+    
+    public double getMinLongitude() { return minLon; }
+    
+    public double getMaxLongitude() { return maxLon; }
+    
+    public int getVertexCount() { return vertexCount; }
+    
+    int getBandEntryCount() { return bandEdges.length; }
+}
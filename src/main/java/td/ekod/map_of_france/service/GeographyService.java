@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class GeographyService {
     
-    private static final double EARTH_RADIUS_KM = 6371.0;
+    static final double EARTH_RADIUS_KM = 6371.0;
     
     /**
      * Calcule la distance entre deux points géographiques en utilisant la formule de Haversine
@@ -19,6 +19,27 @@ public class GeographyService {
      * @return
      */
     public double calculateHaversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        return roundDistance(calculateExactHaversineDistance(lat1, lon1, lat2, lon2));
+    }
+    
+    /**
+     * Arrondit une distance exacte comme les distances renvoyées par l'API
+     * @param exactKm
+     * @return la distance en kilomètres, arrondie sans décimale
+     */
+    public double roundDistance(double exactKm) {
+        return Math.round(exactKm);
+    }
+    
+    /**
+     * Calcule la distance de Haversine sans arrondi, utilisée pour l'élagage des index spatiaux
+     * @param lat1 
+     * @param lon1 
+     * @param lat2 
+     * @param lon2 
+     * @return
+     */
+    public double calculateExactHaversineDistance(double lat1, double lon1, double lat2, double lon2) {
         // Conversion des degrés en radians
         double lat1Rad = Math.toRadians(lat1);
         double lon1Rad = Math.toRadians(lon1);
@@ -36,8 +57,140 @@ public class GeographyService {
         
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         
-        // Distance en kilomètres, arrondie sans décimale
-        return Math.round(EARTH_RADIUS_KM * c);
+        return EARTH_RADIUS_KM * c;
+    }
+    
+    /**
+     * Calcule la distance de Haversine sans arrondi depuis un point préparé vers un point
+     * dont les radians et le cosinus de la latitude sont précalculés : aucune fonction
+     * trigonométrique n'est recalculée côté requête
+     * @param from
+     * @param latRad
+     * @param lonRad
+     * @param cosLat
+     * @return
+     */
+    public double calculateExactHaversineDistance(GeoPoint from, double latRad, double lonRad, double cosLat) {
+        double a = haversineTerm(from, latRad, lonRad, cosLat);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+    }
+    
+    /**
+     * Terme a de la formule de Haversine : sin²(Δlat/2) + cos(lat1)·cos(lat2)·sin²(Δlon/2)
+     */
+    private double haversineTerm(GeoPoint from, double latRad, double lonRad, double cosLat) {
+        double sinHalfDeltaLat = Math.sin((latRad - from.getLatitudeRadians()) / 2);
+        double sinHalfDeltaLon = Math.sin((lonRad - from.getLongitudeRadians()) / 2);
+        return sinHalfDeltaLat * sinHalfDeltaLat
+                + from.getCosLatitude() * cosLat * sinHalfDeltaLon * sinHalfDeltaLon;
+    }
+    
+    /**
+     * Points préparés pour les calculs de distance en série, rangés en colonnes : sinus et cosinus
+     * des demi-latitudes et demi-longitudes, cosinus de la latitude
+     */
+    public record PointColumns(double[] sinHalfLat, double[] cosHalfLat, double[] sinHalfLon,
+                               double[] cosHalfLon, double[] cosLat) {
+        
+        public int size() {
+            return cosLat.length;
+        }
+    }
+    
+    /**
+     * Prépare des points pour {@link #calculateExactHaversineDistances}
+     * @param latitudes en degrés
+     * @param longitudes en degrés
+     * @return
+     */
+    public PointColumns preparePoints(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        PointColumns points = new PointColumns(new double[n], new double[n], new double[n], new double[n], new double[n]);
+        for (int i = 0; i < n; i++) {
+            double halfLat = Math.toRadians(latitudes[i]) / 2;
+            double halfLon = Math.toRadians(longitudes[i]) / 2;
+            points.sinHalfLat()[i] = Math.sin(halfLat);
+            points.cosHalfLat()[i] = Math.cos(halfLat);
+            points.sinHalfLon()[i] = Math.sin(halfLon);
+            points.cosHalfLon()[i] = Math.cos(halfLon);
+            points.cosLat()[i] = Math.cos(2 * halfLat);
+        }
+        return points;
+    }
+    
+    /**
+     * Calcule les distances de Haversine sans arrondi d'un point vers tous les points de to.
+     * Avec sin(Δ/2) = sin(b/2)·cos(a/2) - cos(b/2)·sin(a/2), la première boucle n'est faite que
+     * de multiplications et d'additions sur des tableaux primitifs, que le compilateur JIT peut
+     * vectoriser ; seuls la racine et l'arc sinus restent dans la seconde
+     * @param from points d'origine
+     * @param origin indice du point d'origine dans from
+     * @param to points de destination
+     * @param out reçoit les distances en kilomètres, aux indices [offset, offset + to.size())
+     * @param offset
+     */
+    public void calculateExactHaversineDistances(PointColumns from, int origin, PointColumns to,
+                                                 double[] out, int offset) {
+        double sinHalfLat = from.sinHalfLat()[origin];
+        double cosHalfLat = from.cosHalfLat()[origin];
+        double sinHalfLon = from.sinHalfLon()[origin];
+        double cosHalfLon = from.cosHalfLon()[origin];
+        double cosLat = from.cosLat()[origin];
+        double[] toSinHalfLat = to.sinHalfLat();
+        double[] toCosHalfLat = to.cosHalfLat();
+        double[] toSinHalfLon = to.sinHalfLon();
+        double[] toCosHalfLon = to.cosHalfLon();
+        double[] toCosLat = to.cosLat();
+        int n = to.size();
+        
+        // Terme a de Haversine
+        for (int j = 0; j < n; j++) {
+            double sinHalfDeltaLat = toSinHalfLat[j] * cosHalfLat - toCosHalfLat[j] * sinHalfLat;
+            double sinHalfDeltaLon = toSinHalfLon[j] * cosHalfLon - toCosHalfLon[j] * sinHalfLon;
+            out[offset + j] = sinHalfDeltaLat * sinHalfDeltaLat
+                    + cosLat * toCosLat[j] * sinHalfDeltaLon * sinHalfDeltaLon;
+        }
+        for (int j = offset; j < offset + n; j++) {
+            out[j] = 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, out[j])));
+        }
+    }
+    
+    /**
+     * Convertit une distance en terme a de Haversine, pour le pré-filtre équirectangulaire
+     * @param distanceKm
+     * @return
+     */
+    public double calculateHaversineTerm(double distanceKm) {
+        double halfAngle = distanceKm / (2 * EARTH_RADIUS_KM);
+        if (halfAngle >= Math.PI / 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double sinHalfAngle = Math.sin(halfAngle);
+        return sinHalfAngle * sinHalfAngle;
+    }
+    
+    /**
+     * Pré-filtre équirectangulaire : indique, sans fonction trigonométrique, si le point est
+     * à coup sûr au-delà de la distance correspondant à maxTerm. Le terme de Haversine est
+     * minoré en remplaçant sin(x) par x·(1 - x²/6), valable pour |x| ≤ √6.
+     * @param from
+     * @param latRad
+     * @param lonRad
+     * @param cosLat
+     * @param maxTerm terme obtenu par {@link #calculateHaversineTerm(double)}
+     * @return
+     */
+    public boolean isClearlyBeyond(GeoPoint from, double latRad, double lonRad, double cosLat, double maxTerm) {
+        double halfDeltaLat = (latRad - from.getLatitudeRadians()) / 2;
+        double halfDeltaLon = (lonRad - from.getLongitudeRadians()) / 2;
+        if (Math.abs(halfDeltaLon) > 1.0) {
+            return false;
+        }
+        double lowerSinLat = halfDeltaLat * (1 - halfDeltaLat * halfDeltaLat / 6);
+        double lowerSinLon = halfDeltaLon * (1 - halfDeltaLon * halfDeltaLon / 6);
+        double lowerTerm = lowerSinLat * lowerSinLat
+                + from.getCosLatitude() * cosLat * lowerSinLon * lowerSinLon;
+        return lowerTerm > maxTerm;
     }
     
     /**
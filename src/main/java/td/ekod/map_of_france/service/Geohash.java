@@ -0,0 +1,130 @@
+package td.ekod.map_of_france.service;
+
+/**
+ * Encodage geohash (base 32) pour quantifier des coordonnées sur une grille
+ */
+public final class Geohash {
+    
+    public static final int MAX_PRECISION = 12;
+    
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    
+    private Geohash() {}
+    
+    /**
+     * Encode un point avec le nombre de caractères donné
+     * @param latitude
+     * @param longitude
+     * @param precision
+     * @return
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        long bits = encodeBits(latitude, longitude, precision);
+        char[] hash = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            hash[i] = BASE32[(int) (bits & 0x1F)];
+            bits >>>= 5;
+        }
+        return new String(hash);
+    }
+    
+    /**
+     * Encode un point sous forme numérique, sans allocation : les 5 × precision bits de poids
+     * faible sont ceux du geohash, le premier caractère en tête
+     * @param latitude
+     * @param longitude
+     * @param precision au plus {@link #MAX_PRECISION}
+     * @return
+     */
+    public static long encodeBits(double latitude, double longitude, int precision) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        long bits = 0;
+        boolean evenBit = true;
+        
+        for (int bit = 0; bit < 5 * precision; bit++) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    bits = (bits << 1) | 1;
+                    minLon = mid;
+                } else {
+                    bits = bits << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    bits = (bits << 1) | 1;
+                    minLat = mid;
+                } else {
+                    bits = bits << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+        }
+        return bits;
+    }
+    
+    /**
+     * Limites de la cellule désignée par le geohash
+     * @param hash
+     * @return {minLat, maxLat, minLon, maxLon}, comme {@link GeographyService#calculateBoundingBox}
+     */
+    public static double[] decodeBounds(String hash) {
+        long bits = 0;
+        for (int i = 0; i < hash.length(); i++) {
+            bits = (bits << 5) | indexOf(hash.charAt(i));
+        }
+        return decodeBounds(bits, hash.length());
+    }
+    
+    /**
+     * Limites de la cellule désignée par le geohash numérique ({@link #encodeBits})
+     * @param bits
+     * @param precision
+     * @return {minLat, maxLat, minLon, maxLon}
+     */
+    public static double[] decodeBounds(long bits, int precision) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        boolean evenBit = true;
+        
+        for (int bit = 5 * precision - 1; bit >= 0; bit--) {
+            boolean set = (bits >>> bit & 1) != 0;
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (set) minLon = mid; else maxLon = mid;
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (set) minLat = mid; else maxLat = mid;
+            }
+            evenBit = !evenBit;
+        }
+        return new double[]{minLat, maxLat, minLon, maxLon};
+    }
+    
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Caractère geohash invalide: " + c);
+    }
+    
+    /**
+     * Hauteur d'une cellule en degrés de latitude
+     */
+    public static double cellHeightDegrees(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+    
+    /**
+     * Largeur d'une cellule en degrés de longitude
+     */
+    public static double cellWidthDegrees(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+}
@@ -0,0 +1,201 @@
+package td.ekod.map_of_france.service;
+
+import java.util.Arrays;
+
+/**
+ * Index immuable de la ville la plus proche d'un point (géocodage inverse).
+ * <p>
+ * L'emprise des villes est découpée en une grille de cellules à peu près carrées. Pour chaque
+ * cellule, de centre c et de demi-diagonale r, on retient les villes à moins de d0 + 2r de c, d0
+ * étant la distance de c à sa ville la plus proche : par l'inégalité triangulaire, la ville la plus
+ * proche de tout point de la cellule en fait partie. Une requête lit donc une cellule et compare
+ * quelques distances exactes, quel que soit le nombre de villes. Hors de la grille, la requête
+ * passe par le k-d tree de l'index spatial.
+ */
+public final class NearestCityIndex {
+    
+    /** Nombre de cellules par ville */
+    private static final int CELLS_PER_CITY = 2;
+    
+    private static final int MAX_CELLS = 1 << 18;
+    
+    /** Marge sur le rayon des candidats, pour les arrondis du calcul des distances */
+    private static final double MARGIN_KM = 1e-6;
+    
+    /** Population à partir de laquelle le poids d'une ville augmente d'une unité par décade */
+    private static final double WEIGHT_POPULATION_SCALE = 10_000.0;
+    
+    private final CitySpatialIndex cities;
+    private final double minLat;
+    private final double minLon;
+    private final double cellHeight;
+    private final double cellWidth;
+    private final int rows;
+    private final int cols;
+    
+    /** Candidats de la cellule (ligne, colonne) : candidates[starts[k]] à candidates[starts[k + 1] - 1], k = ligne × cols + colonne */
+    private final int[] starts;
+    private final int[] candidates;
+    
+    /** Poids de chaque ville pour la recherche pondérée par la population, au moins 1 */
+    private final double[] weights;
+    private final double maxWeight;
+    
+    private NearestCityIndex(CitySpatialIndex cities, double minLat, double minLon, double cellHeight,
+                             double cellWidth, int rows, int cols, int[] starts, int[] candidates,
+                             double[] weights, double maxWeight) {
+        this.cities = cities;
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.cellHeight = cellHeight;
+        this.cellWidth = cellWidth;
+        this.rows = rows;
+        this.cols = cols;
+        this.starts = starts;
+        this.candidates = candidates;
+        this.weights = weights;
+        this.maxWeight = maxWeight;
+    }
+    
+    /**
+     * Construit la grille à partir de l'index spatial
+     * @param cities
+     * @param geographyService
+     * @return
+     */
+    public static NearestCityIndex build(CitySpatialIndex cities, GeographyService geographyService) {
+        int size = cities.size();
+        double[] weights = new double[size];
+        double maxWeight = 1.0;
+        double south = Double.MAX_VALUE, north = -Double.MAX_VALUE;
+        double west = Double.MAX_VALUE, east = -Double.MAX_VALUE;
+        for (int position = 0; position < size; position++) {
+            Integer population = cities.getPopulation(position);
+            weights[position] = 1.0 + Math.log10(1.0 + (population != null ? population : 0) / WEIGHT_POPULATION_SCALE);
+            maxWeight = Math.max(maxWeight, weights[position]);
+            south = Math.min(south, cities.getLatitude(position));
+            north = Math.max(north, cities.getLatitude(position));
+            west = Math.min(west, cities.getLongitude(position));
+            east = Math.max(east, cities.getLongitude(position));
+        }
+        if (size == 0) {
+            return new NearestCityIndex(cities, 0, 0, 1, 1, 0, 0, new int[1], new int[0], weights, maxWeight);
+        }
+        
+        // Cellules à peu près carrées en kilomètres, environ CELLS_PER_CITY par ville
+        double latSpan = Math.max(north - south, 1e-6);
+        double lonSpan = Math.max(east - west, 1e-6);
+        double heightKm = Math.toRadians(latSpan) * GeographyService.EARTH_RADIUS_KM;
+        double widthKm = Math.toRadians(lonSpan) * GeographyService.EARTH_RADIUS_KM * Math.cos(Math.toRadians((south + north) / 2));
+        int targetCells = (int) Math.min(MAX_CELLS, (long) size * CELLS_PER_CITY);
+        double cellKm = Math.sqrt(heightKm * widthKm / targetCells);
+        int rows = Math.max(1, Math.min(targetCells, (int) Math.ceil(heightKm / cellKm)));
+        int cols = Math.max(1, Math.min(targetCells / rows, (int) Math.ceil(widthKm / cellKm)));
+        double cellHeight = latSpan / rows;
+        double cellWidth = lonSpan / cols;
+        
+        int[] starts = new int[rows * cols + 1];
+        int[] candidates = new int[Math.max(16, rows * cols)];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            double centerLat = south + (row + 0.5) * cellHeight;
+            // La demi-diagonale est la plus grande du côté de l'équateur, où le degré de longitude est le plus long
+            double equatorLat = centerLat >= 0 ? centerLat - cellHeight / 2 : centerLat + cellHeight / 2;
+            double halfDiagonal = geographyService.calculateExactHaversineDistance(
+                    centerLat, 0, equatorLat, cellWidth / 2);
+            for (int col = 0; col < cols; col++) {
+                double centerLon = west + (col + 0.5) * cellWidth;
+                int nearest = cities.findNearest(centerLat, centerLon, 1, Double.MAX_VALUE, null, null)[0];
+                double d0 = geographyService.calculateExactHaversineDistance(centerLat, centerLon,
+                        cities.getLatitude(nearest), cities.getLongitude(nearest));
+                int[] cell = cities.findWithinRadius(centerLat, centerLon, d0 + 2 * halfDiagonal + MARGIN_KM, null, null);
+                if (count + cell.length > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(count + cell.length, candidates.length * 2));
+                }
+                System.arraycopy(cell, 0, candidates, count, cell.length);
+                count += cell.length;
+                starts[row * cols + col + 1] = count;
+            }
+        }
+        return new NearestCityIndex(cities, south, west, cellHeight, cellWidth, rows, cols, starts,
+                Arrays.copyOf(candidates, count), weights, maxWeight);
+    }
+    
+    /**
+     * Index spatial auquel renvoient les positions
+     * @return
+     */
+    public CitySpatialIndex getCities() {
+        return cities;
+    }
+    
+    /**
+     * Trouve la ville la plus proche du point, la plus peuplée à distance égale
+     * @param latitude
+     * @param longitude
+     * @return la position de la ville dans l'index, -1 si l'index est vide
+     */
+    public int findNearest(double latitude, double longitude) {
+        if (cities.size() == 0) {
+            return -1;
+        }
+        int row = (int) Math.floor((latitude - minLat) / cellHeight);
+        int col = (int) Math.floor((longitude - minLon) / cellWidth);
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return cities.findNearest(latitude, longitude, 1, Double.MAX_VALUE, null, null)[0];
+        }
+        
+        GeoPoint query = new GeoPoint(latitude, longitude);
+        int cell = row * cols + col;
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = starts[cell]; i < starts[cell + 1]; i++) {
+            int position = candidates[i];
+            double distance = cities.distance(query, position);
+            if (best < 0 || cities.isBetter(position, distance, best, bestDistance)) {
+                best = position;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Trouve la ville qui minimise la distance divisée par son poids, le poids croissant d'une unité
+     * par décade de population au-delà de 10 000 habitants : à 3 km d'un village et 10 km d'une
+     * ville de 2 millions d'habitants, le point est rattaché au village
+     * @param latitude
+     * @param longitude
+     * @return la position de la ville dans l'index, -1 si l'index est vide
+     */
+    public int findNearestWeighted(double latitude, double longitude) {
+        int nearest = findNearest(latitude, longitude);
+        if (nearest < 0) {
+            return -1;
+        }
+        // Une ville de poids w ne bat la plus proche, à distance d0, que si elle est à moins de d0 × w
+        GeoPoint query = new GeoPoint(latitude, longitude);
+        double nearestDistance = cities.distance(query, nearest);
+        int[] positions = cities.findWithinRadius(latitude, longitude,
+                nearestDistance * maxWeight + MARGIN_KM, null, null);
+        
+        int best = nearest;
+        double bestScore = nearestDistance / weights[nearest];
+        for (int position : positions) {
+            double score = cities.distance(query, position) / weights[position];
+            if (cities.isBetter(position, score, best, bestScore)) {
+                best = position;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Nombre moyen de candidats par cellule
+     * @return
+     */
+    public double getAverageCandidates() {
+        return rows * cols == 0 ? 0 : (double) candidates.length / (rows * cols);
+    }
+}
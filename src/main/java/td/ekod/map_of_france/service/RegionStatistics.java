@@ -0,0 +1,79 @@
+package td.ekod.map_of_france.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import td.ekod.map_of_france.dto.RegionStatisticsDto;
+
+/**
+ * Agrégats par région calculés en un seul passage sur les colonnes de l'index spatial
+ */
+public final class RegionStatistics {
+    
+    private RegionStatistics() {}
+    
+    /**
+     * Calcule les statistiques de chaque région, dans l'ordre de {@link CitySpatialIndex#getRegions()}
+     * @param index
+     * @return
+     */
+    public static List<RegionStatisticsDto> compute(CitySpatialIndex index) {
+        List<String> regions = index.getRegions();
+        int regionCount = regions.size();
+        long[] counts = new long[regionCount];
+        long[] populations = new long[regionCount];
+        int[] minPopulations = new int[regionCount];
+        int[] maxPopulations = new int[regionCount];
+        double[] latitudeSums = new double[regionCount];
+        double[] longitudeSums = new double[regionCount];
+        double[] minLatitudes = new double[regionCount];
+        double[] maxLatitudes = new double[regionCount];
+        double[] minLongitudes = new double[regionCount];
+        double[] maxLongitudes = new double[regionCount];
+        Arrays.fill(minPopulations, Integer.MAX_VALUE);
+        Arrays.fill(maxPopulations, CitySpatialIndex.NO_POPULATION);
+        Arrays.fill(minLatitudes, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxLatitudes, Double.NEGATIVE_INFINITY);
+        Arrays.fill(minLongitudes, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxLongitudes, Double.NEGATIVE_INFINITY);
+        
+        for (int position = 0; position < index.size(); position++) {
+            int region = index.getRegionCode(position);
+            double latitude = index.getLatitude(position);
+            double longitude = index.getLongitude(position);
+            counts[region]++;
+            latitudeSums[region] += latitude;
+            longitudeSums[region] += longitude;
+            minLatitudes[region] = Math.min(minLatitudes[region], latitude);
+            maxLatitudes[region] = Math.max(maxLatitudes[region], latitude);
+            minLongitudes[region] = Math.min(minLongitudes[region], longitude);
+            maxLongitudes[region] = Math.max(maxLongitudes[region], longitude);
+            
+            Integer population = index.getPopulation(position);
+            if (population != null) {
+                populations[region] += population;
+                minPopulations[region] = Math.min(minPopulations[region], population);
+                maxPopulations[region] = Math.max(maxPopulations[region], population);
+            }
+        }
+        
+        List<RegionStatisticsDto> statistics = new ArrayList<>(regionCount);
+        for (int region = 0; region < regionCount; region++) {
+            boolean populated = maxPopulations[region] != CitySpatialIndex.NO_POPULATION;
+            statistics.add(new RegionStatisticsDto(
+                    regions.get(region),
+                    counts[region],
+                    populations[region],
+                    populated ? minPopulations[region] : null,
+                    populated ? maxPopulations[region] : null,
+                    latitudeSums[region] / counts[region],
+                    longitudeSums[region] / counts[region],
+                    minLatitudes[region],
+                    maxLatitudes[region],
+                    minLongitudes[region],
+                    maxLongitudes[region]));
+        }
+        return List.copyOf(statistics);
+    }
+}
@@ -0,0 +1,54 @@
+package td.ekod.map_of_france.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Tableaux de travail d'une recherche des plus proches voisins (positions et distances),
+ * réutilisés d'une requête à l'autre pour que le chemin de recherche n'alloue pas.
+ * <p>
+ * Les tampons sont prêtés par un pool borné plutôt que par thread : avec les threads
+ * virtuels, chaque requête aurait son propre thread et donc ses propres tampons.
+ */
+final class SearchBuffers {
+    
+    private static final int POOL_SIZE = 256;
+    
+    /** Au-delà, un tampon agrandi par une grande recherche n'est pas conservé */
+    private static final int MAX_POOLED_CAPACITY = 16_384;
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private static final ArrayBlockingQueue<SearchBuffers> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+    
+    int[] positions = new int[INITIAL_CAPACITY];
+    double[] distances = new double[INITIAL_CAPACITY];
+    
+    /**
+     * Emprunte des tampons au pool, ou en crée s'il est vide
+     * @return
+     */
+    static SearchBuffers acquire() {
+        SearchBuffers buffers = POOL.poll();
+        return buffers != null ? buffers : new SearchBuffers();
+    }
+    
+    /**
+     * Rend les tampons au pool ; ils ne doivent plus être lus ensuite
+     */
+    void release() {
+        if (positions.length <= MAX_POOLED_CAPACITY) {
+            POOL.offer(this);
+        }
+    }
+    
+    /**
+     * Agrandit les tableaux pour contenir au moins capacity éléments, sans conserver leur contenu
+     */
+    void ensureCapacity(int capacity) {
+        if (positions.length < capacity) {
+            int length = Math.max(capacity, positions.length * 2);
+            positions = new int[length];
+            distances = new double[length];
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package td.ekod.map_of_france.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import td.ekod.map_of_france.entity.City;
+
+/**
+ * Villes lues directement dans le fichier CSV, sans base de données (profil « snapshot »).
+ * Les identifiants suivent l'ordre du fichier, à partir de 1.
+ */
+@Service
+@Profile(SnapshotCitySource.PROFILE)
+public class SnapshotCitySource implements CitySource {
+    
+    public static final String PROFILE = "snapshot";
+    
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCitySource.class);
+    
+    @Autowired
+    private ResourceLoader resourceLoader;
+    
+    @Value("${app.snapshot.location:classpath:fr.csv}")
+    private String location;
+    
+    @Override
+    public List<City> loadCities() {
+        return readCities(resourceLoader.getResource(location), location);
+    }
+    
+    /**
+     * Emplacement, taille et CRC32C du fichier : une copie binaire générée depuis un autre
+     * fichier, ou depuis une autre version du même, est écartée
+     */
+    @Override
+    public String identity() {
+        try {
+            return identity(resourceLoader.getResource(location), location);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Génère la copie binaire de l'index au build (phase package) ou à la construction de l'image,
+     * pour que chaque nouvelle instance démarre sans analyser le CSV
+     * @param args emplacement du CSV (classpath: ou file:, comme app.snapshot.location) et fichier à écrire
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Arguments attendus : <emplacement du CSV> <fichier binaire>");
+        }
+        Resource resource = new DefaultResourceLoader().getResource(args[0]);
+        List<City> cities = readCities(resource, args[0]);
+        CitySpatialIndex index = CitySpatialIndex.build(cities, new GeographyService());
+        CityDatasetFile.write(index, identity(resource, args[0]), Path.of(args[1]));
+        logger.info("Copie binaire de l'index écrite dans {}", args[1]);
+    }
+    
+    private static List<City> readCities(Resource resource, String location) {
+        long start = System.nanoTime();
+        List<City> cities = new ArrayList<>();
+        
+        try (CsvReader reader = new CsvReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            
+            String[] header = reader.readRecord();
+            if (!CityCsv.isExpectedHeader(header)) {
+                logger.warn("Format de fichier CSV inattendu. En-tête: {}", header == null ? null : String.join(",", header));
+            }
+            
+            String[] fields;
+            while ((fields = reader.readRecord()) != null) {
+                try {
+                    if (fields.length >= CityCsv.FIELD_COUNT) {
+                        City city = CityCsv.parse(fields);
+                        city.setId((long) cities.size() + 1);
+                        cities.add(city);
+                    } else {
+                        logger.warn("Ligne {} ignorée (format invalide): {}", reader.getLineNumber(), String.join(",", fields));
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Erreur lors du traitement de la ligne {}: {} - {}",
+                            reader.getLineNumber(), String.join(",", fields), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        logger.info("Instantané chargé depuis {}: {} villes en {} ms",
+                location, cities.size(), (System.nanoTime() - start) / 1_000_000);
+        return cities;
+    }
+    
+    private static String identity(Resource resource, String location) throws IOException {
+        CRC32C checksum = new CRC32C();
+        long size = 0;
+        try (InputStream in = resource.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                checksum.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return location + ";" + size + ";" + Long.toHexString(checksum.getValue());
+    }
+}
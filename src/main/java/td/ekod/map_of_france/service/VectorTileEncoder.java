@@ -0,0 +1,181 @@
+package td.ekod.map_of_france.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodeur d'une tuile vectorielle Mapbox (MVT 2.1) à une couche de points.
+ * <p>
+ * Le protobuf est écrit directement : Tile.layers (3) contient Layer avec name (1),
+ * features (2), keys (3), values (4), extent (5) et version (15) ; chaque Feature a
+ * id (1), tags (2), type (3) et geometry (4), ces deux listes étant empaquetées.
+ */
+public final class VectorTileEncoder {
+    
+    public static final int EXTENT = 4096;
+    
+    private static final int VERSION = 2;
+    private static final int GEOMETRY_TYPE_POINT = 1;
+    private static final int COMMAND_MOVE_TO = 1;
+    
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    
+    private final String layerName;
+    private final String[] keys;
+    private final Map<Object, Integer> valueIndexes = new HashMap<>();
+    private final ProtobufWriter values = new ProtobufWriter();
+    private final ProtobufWriter features = new ProtobufWriter();
+    private int featureCount;
+    
+    /**
+     * @param layerName nom de la couche
+     * @param keys noms des propriétés, dans l'ordre des valeurs passées à {@link #addPoint}
+     */
+    public VectorTileEncoder(String layerName, String... keys) {
+        this.layerName = layerName;
+        this.keys = keys;
+    }
+    
+    /**
+     * Ajoute un point
+     * @param id identifiant de l'entité
+     * @param x abscisse dans la tuile, entre 0 et {@link #EXTENT} (hors tampon)
+     * @param y ordonnée dans la tuile, vers le bas
+     * @param propertyValues valeurs des propriétés (String, Integer, Long ou Double) ; null pour les omettre
+     */
+    public void addPoint(long id, int x, int y, Object... propertyValues) {
+        ProtobufWriter tags = new ProtobufWriter();
+        for (int i = 0; i < keys.length && i < propertyValues.length; i++) {
+            if (propertyValues[i] != null) {
+                tags.writeVarint(i);
+                tags.writeVarint(valueIndex(propertyValues[i]));
+            }
+        }
+        
+        ProtobufWriter geometry = new ProtobufWriter();
+        geometry.writeVarint(command(COMMAND_MOVE_TO, 1));
+        geometry.writeVarint(zigZag(x));
+        geometry.writeVarint(zigZag(y));
+        
+        ProtobufWriter feature = new ProtobufWriter();
+        feature.writeTag(1, WIRE_VARINT);
+        feature.writeVarint(id);
+        if (tags.size() > 0) {
+            feature.writeBytes(2, tags);
+        }
+        feature.writeTag(3, WIRE_VARINT);
+        feature.writeVarint(GEOMETRY_TYPE_POINT);
+        feature.writeBytes(4, geometry);
+        
+        features.writeBytes(2, feature);
+        featureCount++;
+    }
+    
+    public int getFeatureCount() {
+        return featureCount;
+    }
+    
+    /**
+     * Encode la tuile ; une tuile sans point est vide (aucune couche)
+     * @return
+     */
+    public byte[] encode() {
+        if (featureCount == 0) {
+            return new byte[0];
+        }
+        ProtobufWriter layer = new ProtobufWriter();
+        layer.writeTag(15, WIRE_VARINT);
+        layer.writeVarint(VERSION);
+        layer.writeString(1, layerName);
+        layer.writeRaw(features);
+        for (String key : keys) {
+            layer.writeString(3, key);
+        }
+        layer.writeRaw(values);
+        layer.writeTag(5, WIRE_VARINT);
+        layer.writeVarint(EXTENT);
+        
+        ProtobufWriter tile = new ProtobufWriter();
+        tile.writeBytes(3, layer);
+        return tile.toByteArray();
+    }
+    
+    /**
+     * Index de la valeur dans la table des valeurs de la couche, ajoutée au premier usage
+     */
+    private int valueIndex(Object value) {
+        Integer index = valueIndexes.get(value);
+        if (index != null) {
+            return index;
+        }
+        ProtobufWriter encoded = new ProtobufWriter();
+        if (value instanceof String text) {
+            encoded.writeString(1, text);
+        } else if (value instanceof Double number) {
+            encoded.writeTag(3, 1);
+            encoded.writeFixed64(Double.doubleToLongBits(number));
+        } else if (value instanceof Integer || value instanceof Long) {
+            long number = ((Number) value).longValue();
+            encoded.writeTag(6, WIRE_VARINT);
+            encoded.writeVarint(zigZag(number));
+        } else {
+            throw new IllegalArgumentException("Type de propriété non pris en charge: " + value.getClass());
+        }
+        values.writeBytes(4, encoded);
+        index = valueIndexes.size();
+        valueIndexes.put(value, index);
+        return index;
+    }
+    
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+    
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    /**
+     * Tampon d'écriture protobuf
+     */
+    private static final class ProtobufWriter extends ByteArrayOutputStream {
+        
+        void writeTag(int field, int wireType) {
+            writeVarint((long) field << 3 | wireType);
+        }
+        
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+        
+        void writeFixed64(long value) {
+            for (int i = 0; i < 8; i++) {
+                write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+        
+        void writeString(int field, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+        
+        void writeBytes(int field, ProtobufWriter message) {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(message.size());
+            writeRaw(message);
+        }
+        
+        void writeRaw(ProtobufWriter other) {
+            write(other.buf, 0, other.count);
+        }
+    }
+}
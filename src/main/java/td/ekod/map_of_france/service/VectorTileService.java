@@ -0,0 +1,221 @@
+package td.ekod.map_of_france.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import td.ekod.map_of_france.config.CacheConfig;
+
+/**
+ * Service générant les tuiles vectorielles (MVT) des villes à partir de l'index en mémoire
+ */
+@Service
+public class VectorTileService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(VectorTileService.class);
+    
+    public static final String LAYER_NAME = "cities";
+    
+    public static final int MAX_ZOOM = 22;
+    
+    /** Marge autour de la tuile, en unités de tuile, pour les symboles à cheval sur deux tuiles */
+    private static final int BUFFER = 64;
+    
+    /** Nom d'un répertoire de tuiles pré-calculées : empreinte d'une version du jeu de villes */
+    private static final Pattern VERSION_DIRECTORY = Pattern.compile("[0-9a-f]{24}");
+    
+    /** Emprise de la France métropolitaine pour le pré-calcul des tuiles */
+    private static final double[] FRANCE_BOUNDS = {41.0, 51.5, -5.5, 10.0};
+    
+    @Autowired
+    private CityIndexService cityIndexService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Value("${app.tiles.max-features:2000}")
+    private int maxFeatures;
+    
+    @Value("${app.tiles.seed-max-zoom:-1}")
+    private int seedMaxZoom;
+    
+    @Value("${app.tiles.seed-directory:}")
+    private String seedDirectory;
+    
+    /**
+     * Tuile encodée, valable pour l'index à partir duquel elle a été calculée
+     */
+    private record Tile(CitySpatialIndex index, byte[] bytes) {}
+    
+    /**
+     * Renvoie la tuile z/x/y, depuis le cache ou calculée à la demande
+     * @param z
+     * @param x
+     * @param y
+     * @return le protobuf MVT, vide s'il n'y a aucune ville dans la tuile
+     */
+    public byte[] getTile(int z, int x, int y) {
+        return getTile(cityIndexService.getIndex(), z, x, y);
+    }
+    
+    /**
+     * Renvoie la tuile z/x/y calculée à partir de l'index donné
+     * @param index
+     * @param z
+     * @param x
+     * @param y
+     * @return le protobuf MVT, vide s'il n'y a aucune ville dans la tuile
+     */
+    public byte[] getTile(CitySpatialIndex index, int z, int x, int y) {
+        String key = z + "/" + x + "/" + y;
+        
+        Cache cache = cacheManager.getCache(CacheConfig.VECTOR_TILES);
+        Tile tile = cache.get(key, () -> new Tile(index, encodeTile(index, z, x, y)));
+        if (tile.index() != index) {
+            tile = new Tile(index, encodeTile(index, z, x, y));
+            cache.put(key, tile);
+        }
+        return tile.bytes();
+    }
+    
+    /**
+     * Encode les villes de la tuile, les plus peuplées d'abord jusqu'à maxFeatures
+     */
+    private byte[] encodeTile(CitySpatialIndex index, int z, int x, int y) {
+        double tiles = 1L << z;
+        double buffer = (double) BUFFER / VectorTileEncoder.EXTENT;
+        int[] positions = index.findWithinBounds(
+                WebMercator.latitude((y + 1 + buffer) / tiles), WebMercator.latitude((y - buffer) / tiles),
+                WebMercator.longitude((x - buffer) / tiles), WebMercator.longitude((x + 1 + buffer) / tiles));
+        
+        int[] ranked = index.sortByPopulation(positions);
+        
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER_NAME, "name", "population", "region");
+        int count = Math.min(ranked.length, maxFeatures);
+        for (int i = 0; i < count; i++) {
+            int position = ranked[i];
+            int px = (int) Math.round((WebMercator.x(index.getLongitude(position)) * tiles - x) * VectorTileEncoder.EXTENT);
+            int py = (int) Math.round((WebMercator.y(index.getLatitude(position)) * tiles - y) * VectorTileEncoder.EXTENT);
+            encoder.addPoint(index.getId(position), px, py,
+                    index.getName(position), index.getPopulation(position), index.getRegion(position));
+        }
+        return encoder.encode();
+    }
+    
+    /**
+     * Pré-calcule les tuiles des petits zooms couvrant la France une fois l'application démarrée,
+     * puis après chaque reconstruction des index ({@link CityIndexRefresher}).
+     * <p>
+     * Si un répertoire est configuré, les tuiles y sont rangées par version du jeu de villes
+     * ({@code <hash>/z/x/y.mvt}) : celles de la version courante sont relues au lieu d'être
+     * recalculées, et les répertoires des autres versions sont supprimés.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedLowZoomTiles() {
+        if (seedMaxZoom < 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        CityIndexService.Snapshot snapshot = cityIndexService.getSnapshot();
+        Path versionDirectory = seedDirectory.isBlank() ? null : Path.of(seedDirectory, snapshot.version().hash());
+        Cache cache = cacheManager.getCache(CacheConfig.VECTOR_TILES);
+        int seeded = 0;
+        int loaded = 0;
+        for (int z = 0; z <= Math.min(seedMaxZoom, MAX_ZOOM); z++) {
+            double tiles = 1L << z;
+            int minX = (int) Math.floor(WebMercator.x(FRANCE_BOUNDS[2]) * tiles);
+            int maxX = (int) Math.floor(WebMercator.x(FRANCE_BOUNDS[3]) * tiles);
+            int minY = (int) Math.floor(WebMercator.y(FRANCE_BOUNDS[1]) * tiles);
+            int maxY = (int) Math.floor(WebMercator.y(FRANCE_BOUNDS[0]) * tiles);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    byte[] tile = readSeedFile(versionDirectory, z, x, y);
+                    if (tile != null) {
+                        cache.put(z + "/" + x + "/" + y, new Tile(snapshot.index(), tile));
+                        loaded++;
+                    } else {
+                        writeSeedFile(versionDirectory, z, x, y, getTile(snapshot.index(), z, x, y));
+                    }
+                    seeded++;
+                }
+            }
+        }
+        deleteOtherVersions(versionDirectory);
+        logger.info("{} tuiles pré-calculées jusqu'au zoom {}, dont {} relues sur disque, en {} ms",
+                seeded, seedMaxZoom, loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private static Path seedFile(Path versionDirectory, int z, int x, int y) {
+        return versionDirectory.resolve(Path.of(String.valueOf(z), String.valueOf(x), y + ".mvt"));
+    }
+    
+    private byte[] readSeedFile(Path versionDirectory, int z, int x, int y) {
+        if (versionDirectory == null) {
+            return null;
+        }
+        Path file = seedFile(versionDirectory, z, x, y);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            logger.warn("Impossible de lire la tuile {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeSeedFile(Path versionDirectory, int z, int x, int y, byte[] tile) {
+        if (versionDirectory == null) {
+            return;
+        }
+        Path file = seedFile(versionDirectory, z, x, y);
+        try {
+            Files.createDirectories(file.getParent());
+            // Fichier temporaire puis renommage : une écriture interrompue ne laisse pas de tuile tronquée
+            Path temporary = Files.createTempFile(file.getParent(), y + ".", ".tmp");
+            Files.write(temporary, tile);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Impossible d'écrire la tuile {}: {}", file, e.getMessage());
+        }
+    }
+    
+    /**
+     * Supprime les tuiles des autres versions du jeu de villes, devenues inutiles
+     */
+    private void deleteOtherVersions(Path versionDirectory) {
+        if (versionDirectory == null) {
+            return;
+        }
+        try (Stream<Path> versions = Files.list(versionDirectory.getParent())) {
+            for (Path version : versions.filter(Files::isDirectory)
+                    .filter(path -> !path.equals(versionDirectory))
+                    .filter(path -> VERSION_DIRECTORY.matcher(path.getFileName().toString()).matches())
+                    .toList()) {
+                try (Stream<Path> files = Files.walk(version)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                }
+                logger.info("Tuiles de la version {} supprimées", version.getFileName());
+            }
+        } catch (IOException e) {
+            logger.warn("Impossible de nettoyer {}: {}", versionDirectory.getParent(), e.getMessage());
+        }
+    }
+}
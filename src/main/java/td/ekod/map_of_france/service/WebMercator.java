@@ -0,0 +1,45 @@
+package td.ekod.map_of_france.service;
+
+/**
+ * Projection Web Mercator normalisée : x et y dans [0, 1], y vers le sud,
+ * comme les grilles de tuiles des cartes (Leaflet, MVT)
+ */
+public final class WebMercator {
+    
+    public static final double MAX_LATITUDE = 85.05112878;
+    
+    private WebMercator() {}
+    
+    /**
+     * @param longitude
+     * @return l'abscisse normalisée
+     */
+    public static double x(double longitude) {
+        return (longitude + 180.0) / 360.0;
+    }
+    
+    /**
+     * @param latitude ramenée à ±{@link #MAX_LATITUDE}
+     * @return l'ordonnée normalisée
+     */
+    public static double y(double latitude) {
+        double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return (1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0;
+    }
+    
+    /**
+     * @param x abscisse normalisée
+     * @return la longitude
+     */
+    public static double longitude(double x) {
+        return x * 360.0 - 180.0;
+    }
+    
+    /**
+     * @param y ordonnée normalisée
+     * @return la latitude
+     */
+    public static double latitude(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1.0 - 2.0 * y))));
+    }
+}
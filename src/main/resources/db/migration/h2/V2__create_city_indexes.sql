@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_cities_region_population ON cities (region, population DESC);
+CREATE INDEX IF NOT EXISTS idx_cities_population ON cities (population DESC);
+CREATE INDEX IF NOT EXISTS idx_cities_latitude_longitude ON cities (latitude, longitude);
@@ -0,0 +1,11 @@
+-- Table des villes (correspond à l'entité City)
+CREATE TABLE IF NOT EXISTS cities (
+    id          BIGSERIAL PRIMARY KEY,
+    name        VARCHAR(255)     NOT NULL,
+    postal_code VARCHAR(255)     NOT NULL,
+    latitude    DOUBLE PRECISION NOT NULL,
+    longitude   DOUBLE PRECISION NOT NULL,
+    population  INTEGER,
+    region      VARCHAR(255)     NOT NULL,
+    department  VARCHAR(255)
+);
@@ -0,0 +1,8 @@
+-- findByRegionOrderByPopulationDesc, findCitiesWithFilters avec région
+CREATE INDEX IF NOT EXISTS idx_cities_region_population ON cities (region, population DESC);
+
+-- findCitiesWithFilters sans région, findByNameContaining... (tri par population)
+CREATE INDEX IF NOT EXISTS idx_cities_population ON cities (population DESC);
+
+-- findCitiesInGeographicArea (BETWEEN sur la latitude puis filtre sur la longitude)
+CREATE INDEX IF NOT EXISTS idx_cities_latitude_longitude ON cities (latitude, longitude);
@@ -0,0 +1,15 @@
+-- Index de trigrammes pour LOWER(name) LIKE '%...%', si pg_trgm peut être installée.
+-- Sur une base partagée sans l'extension ni les droits, la migration est sans effet.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_available_extensions WHERE name = 'pg_trgm') THEN
+        EXECUTE 'CREATE EXTENSION IF NOT EXISTS pg_trgm';
+        EXECUTE 'CREATE INDEX IF NOT EXISTS idx_cities_name_trgm ON cities USING GIN (LOWER(name) gin_trgm_ops)';
+    ELSE
+        RAISE NOTICE 'pg_trgm indisponible : pas d''index de trigrammes sur cities.name';
+    END IF;
+EXCEPTION
+    WHEN insufficient_privilege THEN
+        RAISE NOTICE 'Droits insuffisants pour pg_trgm : pas d''index de trigrammes sur cities.name';
+END
+$$;
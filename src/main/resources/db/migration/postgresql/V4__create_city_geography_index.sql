@@ -0,0 +1,17 @@
+-- Colonne geography calculée et index GiST (requêtes KNN avec <->), si PostGIS peut être installée.
+-- CityRepositoryCustomImpl détecte la colonne à la première requête et se replie sinon sur une requête sans PostGIS.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_available_extensions WHERE name = 'postgis') THEN
+        EXECUTE 'CREATE EXTENSION IF NOT EXISTS postgis';
+        EXECUTE 'ALTER TABLE cities ADD COLUMN IF NOT EXISTS geog geography(Point, 4326) '
+             || 'GENERATED ALWAYS AS (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)::geography) STORED';
+        EXECUTE 'CREATE INDEX IF NOT EXISTS idx_cities_geog ON cities USING GIST (geog)';
+    ELSE
+        RAISE NOTICE 'PostGIS indisponible : pas d''index spatial sur cities';
+    END IF;
+EXCEPTION
+    WHEN insufficient_privilege THEN
+        RAISE NOTICE 'Droits insuffisants pour PostGIS : pas d''index spatial sur cities';
+END
+$$;
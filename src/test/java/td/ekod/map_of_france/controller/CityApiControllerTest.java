@@ -9,15 +9,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.dto.ClusterDto;
+import td.ekod.map_of_france.dto.DistanceMatrixResponseDto;
+import td.ekod.map_of_france.dto.PolygonSearchResponseDto;
 import td.ekod.map_of_france.dto.SearchCriteriaDto;
 import td.ekod.map_of_france.service.CityService;
+import td.ekod.map_of_france.service.GeoPolygon;
 import td.ekod.map_of_france.service.GeographyService;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -143,4 +149,197 @@ class CityApiControllerTest {
                         .content(objectMapper.writeValueAsString(validCriteria)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void searchCitiesByName_WithLimit_ShouldPassLimitToService() throws Exception {
+        // Given
+        when(cityService.searchCitiesByName(eq("par"), eq(3)))
+                .thenReturn(mockCities);
+
+        // When & Then
+        mockMvc.perform(get("/api/cities/search-text")
+                        .param("query", " par ")
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cities[0].name").value("Paris"))
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.query").value(" par "));
+    }
+
+    @Test
+    void searchCitiesByName_WithLimitTooHigh_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/cities/search-text")
+                        .param("query", "paris")
+                        .param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchCitiesByName_WithShortQuery_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/cities/search-text")
+                        .param("query", "p"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getClusters_ValidRequest_ShouldReturnClusters() throws Exception {
+        // Given
+        ClusterDto cluster = new ClusterDto(48.85, 2.35, 12, 2500000L, null);
+        when(cityService.findClusters(48.0, 2.0, 49.0, 3.0, 8)).thenReturn(List.of(cluster));
+
+        // When & Then
+        mockMvc.perform(get("/api/cities/clusters")
+                        .param("bbox", "2.0,48.0,3.0,49.0")
+                        .param("zoom", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.clusters[0].count").value(12))
+                .andExpect(jsonPath("$.clusters[0].population").value(2500000));
+    }
+
+    @Test
+    void getClusters_InvalidBoundingBox_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/cities/clusters")
+                        .param("bbox", "3.0,48.0,2.0,49.0")
+                        .param("zoom", "8"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/cities/clusters")
+                        .param("bbox", "2.0,48.0,3.0")
+                        .param("zoom", "8"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/cities/clusters")
+                        .param("bbox", "2.0,48.0,3.0,49.0")
+                        .param("zoom", "30"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchCitiesBatch_WithValidAndInvalidPoints_ShouldReturnResultPerPoint() throws Exception {
+        // Given
+        SearchCriteriaDto invalid = new SearchCriteriaDto();
+        invalid.setLongitude(2.3522);
+        when(geographyService.isInFranceMetropolitaine(any(Double.class), any(Double.class)))
+                .thenReturn(true);
+        when(cityService.searchCitiesBatch(any()))
+                .thenReturn(List.of(mockCities, mockCities));
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/search/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(validCriteria, invalid, validCriteria))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.errorCount").value(1))
+                .andExpect(jsonPath("$.results[0].cities[0].name").value("Paris"))
+                .andExpect(jsonPath("$.results[1].errors.latitude").exists())
+                .andExpect(jsonPath("$.results[2].count").value(1));
+    }
+
+    @Test
+    void searchCitiesBatch_EmptyBatch_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/cities/search/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchCitiesInPolygon_WithGeoJsonPolygon_ShouldReturnCities() throws Exception {
+        // Given
+        when(cityService.searchCitiesInPolygon(any(GeoPolygon.class), any(), any(), any(), eq(50)))
+                .thenReturn(new PolygonSearchResponseDto(mockCities, 12));
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/search/polygon")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"geometry": {"type": "Polygon", "coordinates": [[[2.0, 48.5], [2.7, 48.5], [2.7, 49.1], [2.0, 48.5]]]},
+                                 "maxCities": 50}"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cities[0].name").value("Paris"))
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.totalCount").value(12));
+    }
+
+    @Test
+    void searchCitiesInPolygon_WithoutShape_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/cities/search/polygon")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"region\": \"TOUTES\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void searchCitiesInPolygon_WithInvalidGeometry_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/cities/search/polygon")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"geometry\": {\"type\": \"Point\", \"coordinates\": [2.35, 48.85]}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Type de géométrie non pris en charge: Point (Polygon ou MultiPolygon attendu)"));
+    }
+
+    @Test
+    void findNearestCity_InFrance_ShouldReturnCity() throws Exception {
+        // Given
+        when(geographyService.isInFranceMetropolitaine(48.86, 2.35)).thenReturn(true);
+        when(cityService.findNearestCity(48.86, 2.35, false)).thenReturn(mockCities.get(0));
+
+        // When & Then
+        mockMvc.perform(get("/api/cities/nearest").param("lat", "48.86").param("lon", "2.35"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Paris"));
+    }
+
+    @Test
+    void findNearestCity_OutsideFranceOrMissingCoordinate_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(geographyService.isInFranceMetropolitaine(51.5, -0.12)).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(get("/api/cities/nearest").param("lat", "51.5").param("lon", "-0.12"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Les coordonnées doivent être en France métropolitaine"));
+        mockMvc.perform(get("/api/cities/nearest").param("lat", "48.86"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void computeDistanceMatrix_WithValidIds_ShouldReturnRowMajorMatrix() throws Exception {
+        // Given
+        when(cityService.computeDistanceMatrix(List.of(1L, 2L), List.of(3L)))
+                .thenReturn(new DistanceMatrixResponseDto(List.of(1L, 2L), List.of(3L), 2, 1, new double[]{392.217, 0.0}));
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/distance-matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"origins\": [1, 2], \"destinations\": [3]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2))
+                .andExpect(jsonPath("$.columns").value(1))
+                .andExpect(jsonPath("$.distances[0]").value(392.217));
+    }
+
+    @Test
+    void computeDistanceMatrix_WithMissingOrUnknownIds_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(cityService.computeDistanceMatrix(List.of(999L), List.of(1L)))
+                .thenThrow(new IllegalArgumentException("Villes inconnues: [999]"));
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/distance-matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"origins\": [], \"destinations\": [1]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("La liste des villes d'origine est obligatoire"));
+        mockMvc.perform(post("/api/cities/distance-matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"origins\": [999], \"destinations\": [1]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Villes inconnues: [999]"));
+    }
 }
@@ -1,31 +1,59 @@
 package td.ekod.map_of_france.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import td.ekod.map_of_france.dto.SearchCriteriaDto;
+import td.ekod.map_of_france.service.CityIndexService;
+import td.ekod.map_of_france.service.CitySpatialIndex;
+import td.ekod.map_of_france.service.GeographyService;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
-@AutoConfigureWebMvc
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
 @Transactional
 class CityApiIntegrationTest {
 
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CityIndexService cityIndexService;
+
+    @Autowired
+    private GeographyService geographyService;
+
     @Test
     void searchCities_IntegrationTest_ShouldReturnCities() throws Exception {
         // Given
@@ -88,4 +116,359 @@ class CityApiIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.cities").isArray());
     }
+
+    @Test
+    void searchCities_NearestMode_ShouldIgnoreMaxDistance() throws Exception {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setLatitude(46.0); // Centre de la France, loin de toute grande ville
+        criteria.setLongitude(2.0);
+        criteria.setMaxCities(5);
+        criteria.setMaxDistance(1.0);
+        criteria.setMinPopulation(0);
+        criteria.setRegion("TOUTES");
+        criteria.setMode(SearchCriteriaDto.MODE_NEAREST);
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5))
+                .andExpect(jsonPath("$.cities[4].distance").exists());
+    }
+
+    @Test
+    void searchCities_WithUnknownMode_ShouldReturnBadRequest() throws Exception {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setLatitude(48.8566);
+        criteria.setLongitude(2.3522);
+        criteria.setMode("everywhere");
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchCitiesBatch_ShouldMatchSingleSearches() throws Exception {
+        // Given
+        SearchCriteriaDto paris = new SearchCriteriaDto(48.8566, 2.3522, 5, 50.0, 0, "TOUTES");
+        SearchCriteriaDto nearParis = new SearchCriteriaDto(48.86, 2.36, 5, 50.0, 0, "TOUTES");
+        SearchCriteriaDto lyon = new SearchCriteriaDto(45.7640, 4.8357, 3, 100.0, 0, "TOUTES");
+        lyon.setMode(SearchCriteriaDto.MODE_NEAREST);
+        List<SearchCriteriaDto> batch = List.of(paris, nearParis, lyon);
+
+        // When
+        String response = mockMvc.perform(post("/api/cities/search/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.errorCount").value(0))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        JsonNode results = objectMapper.readTree(response).get("results");
+        for (int i = 0; i < batch.size(); i++) {
+            String single = mockMvc.perform(post("/api/cities/search")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch.get(i))))
+                    .andReturn().getResponse().getContentAsString();
+            assertEquals(objectMapper.readTree(single).get("cities"), results.get(i).get("cities"));
+        }
+    }
+
+    @Test
+    void searchCities_WithNdjsonAccept_ShouldStreamOneCityPerLine() throws Exception {
+        // Given : au-delà du plafond de 100 villes des réponses JSON
+        SearchCriteriaDto criteria = new SearchCriteriaDto(46.5, 2.5, 500, 1000.0, 0, "TOUTES");
+
+        // When
+        MvcResult started = mockMvc.perform(post("/api/cities/search")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        String[] lines = body.split("\n");
+        assertEquals(500, lines.length);
+        double previous = 0.0;
+        for (String line : lines) {
+            double distance = objectMapper.readTree(line).get("distance").asDouble();
+            assertTrue(distance >= previous);
+            previous = distance;
+        }
+    }
+
+    @Test
+    void searchCitiesByName_WithNdjsonAccept_ShouldStreamMatches() throws Exception {
+        // When
+        MvcResult started = mockMvc.perform(get("/api/cities/search-text")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("query", "saint")
+                        .param("limit", "200"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        String[] lines = body.split("\n");
+        assertTrue(lines.length > 100);
+        for (String line : lines) {
+            assertTrue(objectMapper.readTree(line).get("name").asText().toLowerCase().contains("saint"));
+        }
+    }
+
+    @Test
+    void searchCities_WithNdjsonAcceptAndTooManyCities_ShouldReturnBadRequest() throws Exception {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto(46.5, 2.5, 20_000, 1000.0, 0, "TOUTES");
+
+        // When
+        MvcResult started = mockMvc.perform(post("/api/cities/search")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.maxCities").exists());
+    }
+
+    @Test
+    void searchCities_ShouldRecordMetrics() throws Exception {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto(48.8566, 2.3522, 5, 100.0, 0, "TOUTES");
+
+        // When
+        mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andExpect(status().isOk());
+
+        // Then
+        assertTrue(meterRegistry.get("cities.search.results").tag("mode", "radius").summary().count() > 0);
+        assertTrue(meterRegistry.get("cities.search.candidates").summary().count() > 0);
+        assertTrue(meterRegistry.get("http.server.requests").tag("uri", "/api/cities/search").timer().count() > 0);
+    }
+
+    @Test
+    void searchCities_LargeRadius_ShouldSearchTreeWithoutCellCandidates() throws Exception {
+        // Given : rayon au-delà de app.search.max-cell-radius-km
+        SearchCriteriaDto criteria = new SearchCriteriaDto(46.5, 2.5, 50, 1000.0, 0, "TOUTES");
+        CitySpatialIndex index = cityIndexService.getIndex();
+        List<Double> expected = IntStream.range(0, index.size())
+                .mapToObj(i -> geographyService.calculateExactHaversineDistance(46.5, 2.5,
+                        index.getLatitude(i), index.getLongitude(i)))
+                .sorted()
+                .limit(50)
+                .map(geographyService::roundDistance)
+                .toList();
+        long candidatesBefore = meterRegistry.get("cities.search.candidates").summary().count();
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(50))
+                .andReturn();
+
+        // Then
+        JsonNode cities = objectMapper.readTree(result.getResponse().getContentAsString()).get("cities");
+        List<Double> distances = IntStream.range(0, cities.size())
+                .mapToObj(i -> cities.get(i).get("distance").asDouble())
+                .toList();
+        assertEquals(expected, distances);
+        assertEquals(candidatesBefore, meterRegistry.get("cities.search.candidates").summary().count());
+    }
+
+    @Test
+    void getTile_France_ShouldReturnVectorTile() throws Exception {
+        // Tuile 5/16/11 : nord de la France, dont Paris
+        mockMvc.perform(get("/tiles/5/16/11.mvt"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/vnd.mapbox-vector-tile"))
+                .andExpect(header().string("Cache-Control", "max-age=3600, public"))
+                .andExpect(header().exists("ETag"));
+
+        // Tuile en plein océan Pacifique
+        mockMvc.perform(get("/tiles/5/2/14.mvt"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/tiles/5/32/11.mvt"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRegions_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        // Given
+        MvcResult first = mockMvc.perform(get("/api/cities/regions").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=300, public"))
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn();
+        String eTag = first.getResponse().getHeader("ETag");
+        assertTrue(eTag != null && eTag.startsWith("\"") && !eTag.startsWith("W/"));
+
+        // When & Then
+        mockMvc.perform(get("/api/cities/regions").accept(MediaType.APPLICATION_JSON).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        // Autre représentation négociée : autre ETag
+        mockMvc.perform(get("/api/cities/search-text?query=paris").accept(MediaType.APPLICATION_NDJSON)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+
+        // Les recherches en POST ne sont pas concernées
+        mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", eTag)
+                        .content(objectMapper.writeValueAsString(
+                                new SearchCriteriaDto(48.8566, 2.3522, 5, 100.0, 0, "TOUTES"))))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void getCity_NotFoundOrInvalid_ShouldNotBeCached() throws Exception {
+        // When & Then : les erreurs ne portent ni Cache-Control public ni validateurs
+        mockMvc.perform(get("/api/cities/999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Cache-Control"))
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(header().doesNotExist("Last-Modified"));
+
+        mockMvc.perform(get("/api/cities/clusters?bbox=invalide&zoom=5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("Cache-Control"))
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void searchCities_WithSmileAccept_ShouldReturnCompactBinaryResponse() throws Exception {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto(48.8566, 2.3522, 50, 100.0, 0, "TOUTES");
+        String body = objectMapper.writeValueAsString(criteria);
+        byte[] json = mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // When
+        byte[] smile = mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(SMILE)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        JsonNode decoded = new SmileMapper().readTree(smile);
+        assertEquals(50, decoded.get("count").asInt());
+        assertEquals("Paris", decoded.get("cities").get(0).get("name").asText());
+        assertEquals(objectMapper.readTree(json), decoded);
+        assertTrue(smile.length < json.length);
+        // Les chaînes répétées (régions) sont partagées : plus compact que Smile par défaut
+        assertTrue(smile.length < new SmileMapper().writeValueAsBytes(decoded).length);
+    }
+
+    @Test
+    void searchCitiesInPolygon_IntegrationTest_ShouldReturnCitiesInsideZone() throws Exception {
+        // Given : zone autour de Paris et de la petite couronne
+        String request = """
+                {"geometry": {"type": "Polygon", "coordinates": [[[2.1, 48.7], [2.6, 48.7], [2.6, 49.0], [2.1, 49.0], [2.1, 48.7]]]},
+                 "minPopulation": 10000, "maxCities": 20}""";
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/cities/search/polygon")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cities[0].name").value("Paris"))
+                .andReturn();
+
+        // Then
+        JsonNode response = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertTrue(response.get("totalCount").asInt() >= response.get("count").asInt());
+        for (JsonNode city : response.get("cities")) {
+            double latitude = city.get("latitude").asDouble();
+            double longitude = city.get("longitude").asDouble();
+            assertTrue(latitude >= 48.7 && latitude <= 49.0 && longitude >= 2.1 && longitude <= 2.6);
+            assertTrue(city.get("population").asInt() >= 10000);
+        }
+    }
+
+    @Test
+    void searchCitiesInPolygon_WithRegionShape_ShouldReturnRegionCities() throws Exception {
+        mockMvc.perform(post("/api/cities/search/polygon")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"region\": \"Bretagne\", \"maxCities\": 5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5))
+                .andExpect(jsonPath("$.cities[*].region").value(everyItem(equalTo("Bretagne"))));
+    }
+
+    @Test
+    void findNearestCity_NearParis_ShouldReturnParisWithExactDistance() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/cities/nearest").param("lat", "48.857").param("lon", "2.352"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Paris"))
+                .andReturn();
+        double distance = objectMapper.readTree(result.getResponse().getContentAsString()).get("distance").asDouble();
+        assertTrue(distance > 0 && distance < 0.1, "Distance : " + distance);
+
+        mockMvc.perform(get("/api/cities/nearest").param("lat", "48.857").param("lon", "2.352")
+                        .param("weighted", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Paris"));
+    }
+
+    @Test
+    void computeDistanceMatrix_ThousandByThousand_ShouldMatchSingleDistances() throws Exception {
+        // Given : les 1000 premières villes de l'index, dans les deux sens
+        CitySpatialIndex index = cityIndexService.getIndex();
+        List<Long> origins = IntStream.range(0, 1000).mapToObj(index::getId).toList();
+        List<Long> destinations = IntStream.range(0, 1000).mapToObj(i -> index.getId(999 - i)).toList();
+        String request = objectMapper.writeValueAsString(Map.of("origins", origins, "destinations", destinations));
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/cities/distance-matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(1000))
+                .andExpect(jsonPath("$.columns").value(1000))
+                .andReturn();
+
+        // Then
+        JsonNode distances = objectMapper.readTree(result.getResponse().getContentAsString()).get("distances");
+        assertEquals(1_000_000, distances.size());
+        for (int i = 0; i < 1000; i += 97) {
+            for (int j = 0; j < 1000; j += 89) {
+                double expected = geographyService.calculateExactHaversineDistance(
+                        index.getLatitude(i), index.getLongitude(i),
+                        index.getLatitude(999 - j), index.getLongitude(999 - j));
+                assertEquals(expected, distances.get(i * 1000 + j).asDouble(), 0.001);
+            }
+        }
+    }
 }
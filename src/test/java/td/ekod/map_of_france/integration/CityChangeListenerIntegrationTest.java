@@ -0,0 +1,87 @@
+package td.ekod.map_of_france.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import td.ekod.map_of_france.dto.RegionStatisticsDto;
+import td.ekod.map_of_france.entity.City;
+import td.ekod.map_of_france.repository.CityRepository;
+import td.ekod.map_of_france.service.CityService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CityChangeListenerIntegrationTest {
+
+    private static final String REGION = "Région de test";
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void statistics_ShouldFollowCommittedChanges() {
+        long totalBefore = cityService.getTotalCityCount();
+        assertTrue(regionStatistics().isEmpty());
+
+        // Création : une seule reconstruction pour la transaction, après sa validation
+        List<City> saved = transactionTemplate.execute(status -> cityRepository.saveAll(List.of(
+                new City("Testville", "00001", 45.0, 3.0, 100, REGION, "Test"),
+                new City("Testbourg", "00002", 46.0, 4.0, 300, REGION, "Test"))));
+        await(() -> regionStatistics().isPresent());
+        RegionStatisticsDto created = regionStatistics().orElseThrow();
+        assertEquals(2, created.cityCount());
+        assertEquals(400, created.totalPopulation());
+        assertEquals(45.5, created.centroidLatitude(), 1e-9);
+        assertEquals(totalBefore + 2, cityService.getTotalCityCount());
+
+        // Modification
+        transactionTemplate.executeWithoutResult(status -> {
+            City city = cityRepository.findById(saved.get(0).getId()).orElseThrow();
+            city.setPopulation(700);
+        });
+        await(() -> Integer.valueOf(700).equals(regionStatistics().orElseThrow().maxPopulation()));
+        RegionStatisticsDto updated = regionStatistics().orElseThrow();
+        assertEquals(1000, updated.totalPopulation());
+        assertEquals(700, updated.maxPopulation());
+
+        // Suppression
+        transactionTemplate.executeWithoutResult(status -> cityRepository.deleteAllById(
+                saved.stream().map(City::getId).toList()));
+        await(() -> regionStatistics().isEmpty());
+        assertTrue(regionStatistics().isEmpty());
+        assertEquals(totalBefore, cityService.getTotalCityCount());
+    }
+
+    /** La reconstruction s'exécute hors du thread de la transaction */
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Index non reconstruit après 10 s");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private Optional<RegionStatisticsDto> regionStatistics() {
+        return cityService.getRegionStatistics().stream()
+                .filter(statistics -> REGION.equals(statistics.region()))
+                .findFirst();
+    }
+}
@@ -0,0 +1,82 @@
+package td.ekod.map_of_france.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import td.ekod.map_of_france.entity.City;
+import td.ekod.map_of_france.repository.CityRepository;
+import td.ekod.map_of_france.service.CityIndexService;
+import td.ekod.map_of_france.service.CitySource;
+import td.ekod.map_of_france.service.CitySpatialIndex;
+import td.ekod.map_of_france.service.GeographyService;
+import td.ekod.map_of_france.service.NearestCityIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class CityRepositoryIntegrationTest {
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private GeographyService geographyService;
+
+    @Autowired
+    private CitySource citySource;
+
+    @Autowired
+    private CityIndexService cityIndexService;
+
+    @Test
+    void findNearestCities_WithoutPostgis_ShouldOrderByDistance() {
+        // When
+        List<City> cities = cityRepository.findNearestCities(48.8566, 2.3522, 10);
+
+        // Then
+        assertEquals(10, cities.size());
+        assertEquals("Paris", cities.get(0).getName());
+        double previous = 0;
+        for (City city : cities) {
+            double distance = geographyService.calculateExactHaversineDistance(
+                    48.8566, 2.3522, city.getLatitude(), city.getLongitude());
+            assertTrue(distance >= previous);
+            previous = distance;
+        }
+    }
+
+    @Test
+    void findNearestCities_FromDatabaseSource_ShouldMatchNearestCityIndex() {
+        // Given : la source en base sert le géocodage inverse tant que les index ne sont pas construits
+        NearestCityIndex nearestIndex = cityIndexService.getNearestCityIndex();
+        CitySpatialIndex index = nearestIndex.getCities();
+        double[][] points = {{48.8566, 2.3522}, {43.2965, 5.3698}, {46.0, 2.0}, {49.5, -1.2}};
+
+        for (double[] point : points) {
+            // When
+            List<City> cities = citySource.findNearestCities(point[0], point[1], 1);
+
+            // Then
+            assertEquals(1, cities.size());
+            assertEquals(index.getId(nearestIndex.findNearest(point[0], point[1])), cities.get(0).getId());
+        }
+    }
+
+    @Test
+    void findByNameContaining_ShouldUseMigratedSchema() {
+        // When
+        List<City> cities = cityRepository.findByNameContainingIgnoreCaseOrderByPopulationDesc(
+                "marseille", Limit.of(5));
+
+        // Then
+        assertFalse(cities.isEmpty());
+        assertEquals("Marseille", cities.get(0).getName());
+    }
+}
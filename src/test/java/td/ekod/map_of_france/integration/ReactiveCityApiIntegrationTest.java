@@ -0,0 +1,239 @@
+package td.ekod.map_of_france.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import td.ekod.map_of_france.dto.CityDto;
+import td.ekod.map_of_france.dto.SearchCriteriaDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"snapshot", "reactive"})
+class ReactiveCityApiIntegrationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext applicationContext;
+
+    @Test
+    @DisplayName("Le profil reactive sert l'API sur Netty")
+    void context_WithReactiveProfile_ShouldRunOnNetty() {
+        // Then
+        assertInstanceOf(NettyWebServer.class, applicationContext.getWebServer());
+    }
+
+    @Test
+    @DisplayName("Recherche JSON - même contrat que l'API servlet")
+    void searchCities_ShouldReturnCities() {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto(48.8566, 2.3522, 5, 100.0, 0, "TOUTES");
+
+        // When & Then
+        webTestClient.post().uri("/api/cities/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(criteria)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(5)
+                .jsonPath("$.cities[0].name").isEqualTo("Paris");
+    }
+
+    @Test
+    @DisplayName("Recherche dans une zone - polygone GeoJSON et géométrie invalide")
+    void searchCitiesInPolygon_ShouldReturnCitiesInsideZone() {
+        // When & Then
+        webTestClient.post().uri("/api/cities/search/polygon")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"geometry": {"type": "Polygon", "coordinates": [[[2.1, 48.7], [2.6, 48.7], [2.6, 49.0], [2.1, 49.0]]]},
+                         "maxCities": 3}""")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(3)
+                .jsonPath("$.cities[0].name").isEqualTo("Paris");
+
+        webTestClient.post().uri("/api/cities/search/polygon")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[[2.1, 48.7]]]}}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Un anneau doit avoir au moins 3 sommets distincts");
+    }
+
+    @Test
+    @DisplayName("Matrice de distances - rangée ligne par ligne, identifiants inconnus refusés")
+    void computeDistanceMatrix_ShouldReturnRowMajorMatrix() {
+        // When & Then
+        webTestClient.post().uri("/api/cities/distance-matrix")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"origins\": [1, 2], \"destinations\": [1, 2, 3]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rows").isEqualTo(2)
+                .jsonPath("$.columns").isEqualTo(3)
+                .jsonPath("$.distances.length()").isEqualTo(6)
+                .jsonPath("$.distances[0]").isEqualTo(0.0);
+
+        webTestClient.post().uri("/api/cities/distance-matrix")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"origins\": [1], \"destinations\": [-1]}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Villes inconnues: [-1]");
+    }
+
+    @Test
+    @DisplayName("Critères invalides ou hors de France - 400")
+    void searchCities_WithInvalidCriteria_ShouldReturnBadRequest() {
+        // Given
+        SearchCriteriaDto missingLatitude = new SearchCriteriaDto(null, 2.3522, 5, 100.0, 0, "TOUTES");
+        SearchCriteriaDto london = new SearchCriteriaDto(51.5074, -0.1278, 5, 100.0, 0, "TOUTES");
+
+        // When & Then
+        webTestClient.post().uri("/api/cities/search")
+                .bodyValue(missingLatitude)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.latitude").exists();
+
+        webTestClient.post().uri("/api/cities/search")
+                .bodyValue(london)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").exists();
+    }
+
+    @Test
+    @DisplayName("Flux NDJSON - une ville par ligne, en suivant la demande du client")
+    void streamCities_ShouldStreamEveryCity() {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto(46.5, 2.5, 500, 1000.0, 0, "TOUTES");
+
+        // When
+        Flux<CityDto> cities = webTestClient.post().uri("/api/cities/search")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(criteria)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(CityDto.class)
+                .getResponseBody();
+
+        // Then
+        List<CityDto> received = cities.limitRate(10).collectList().block();
+        assertEquals(500, received.size());
+        assertTrue(received.stream().allMatch(city -> city.getName() != null && city.getDistance() <= 1000.0));
+    }
+
+    @Test
+    @DisplayName("Lot, régions, statistiques et recherche textuelle")
+    void otherEndpoints_ShouldBeServed() {
+        webTestClient.post().uri("/api/cities/search/batch")
+                .bodyValue(new SearchCriteriaDto[]{
+                        new SearchCriteriaDto(48.8566, 2.3522, 5, 50.0, 0, "TOUTES"),
+                        new SearchCriteriaDto(null, 2.3522, 5, 50.0, 0, "TOUTES")})
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.errorCount").isEqualTo(1)
+                .jsonPath("$.results[0].count").isEqualTo(5);
+
+        webTestClient.get().uri("/api/cities/regions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.regions").isNotEmpty();
+
+        webTestClient.get().uri("/api/cities/statistics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalCities").isNumber();
+
+        webTestClient.get().uri("/api/cities/search-text?query=paris")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.cities[0].name").isEqualTo("Paris");
+
+        webTestClient.get().uri("/api/cities/999999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("ETag du jeu de villes - 304 sans atteindre le contrôleur")
+    void getStatistics_WithMatchingETag_ShouldReturnNotModified() {
+        // Given
+        String eTag = webTestClient.get().uri("/api/cities/statistics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Cache-Control", "max-age=300, public")
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        // When & Then
+        webTestClient.get().uri("/api/cities/statistics")
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", eTag);
+
+        // Les erreurs ne portent ni Cache-Control public ni validateurs
+        webTestClient.get().uri("/api/cities/999999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().doesNotExist("Cache-Control")
+                .expectHeader().doesNotExist("ETag")
+                .expectHeader().doesNotExist("Last-Modified");
+    }
+
+    @Test
+    @DisplayName("Statistiques et recherche textuelle négociées en Smile")
+    void statistics_WithSmileAccept_ShouldReturnSmile() throws Exception {
+        // When
+        byte[] statistics = webTestClient.get().uri("/api/cities/statistics")
+                .accept(SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(SMILE)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+        byte[] textSearch = webTestClient.get().uri("/api/cities/search-text?query=paris")
+                .accept(SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        // Then
+        SmileMapper mapper = new SmileMapper();
+        assertTrue(mapper.readTree(statistics).get("totalCities").asLong() > 0);
+        assertEquals("Paris", mapper.readTree(textSearch).get("cities").get(0).get("name").asText());
+    }
+}
@@ -0,0 +1,80 @@
+package td.ekod.map_of_france.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import td.ekod.map_of_france.dto.SearchCriteriaDto;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("snapshot")
+class SnapshotProfileIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    @DisplayName("Le profil snapshot démarre sans source de données")
+    void context_WithSnapshotProfile_ShouldNotCreateDataSource() {
+        // Then
+        assertEquals(0, applicationContext.getBeanNamesForType(DataSource.class).length);
+    }
+
+    @Test
+    @DisplayName("La recherche est servie depuis l'instantané en mémoire")
+    void searchCities_WithSnapshotProfile_ShouldReturnCities() throws Exception {
+        // Given
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setLatitude(48.8566); // Paris
+        criteria.setLongitude(2.3522);
+        criteria.setMaxCities(5);
+        criteria.setMaxDistance(100.0);
+        criteria.setMinPopulation(0);
+        criteria.setRegion("TOUTES");
+
+        // When & Then
+        mockMvc.perform(post("/api/cities/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criteria)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5))
+                .andExpect(jsonPath("$.cities[0].name").value("Paris"));
+    }
+
+    @Test
+    @DisplayName("Les régions, les statistiques et la page d'accueil sont servies sans base")
+    void regionsAndIndex_WithSnapshotProfile_ShouldBeServed() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/cities/regions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.regions").isNotEmpty());
+
+        mockMvc.perform(get("/api/cities/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.regionStatistics[0].region").isString())
+                .andExpect(jsonPath("$.regionStatistics[0].cityCount").isNumber());
+
+        mockMvc.perform(get("/"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,96 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import td.ekod.map_of_france.entity.City;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityClusterIndexTest {
+
+    private List<City> cities;
+    private CitySpatialIndex index;
+    private CityClusterIndex clusters;
+
+    @BeforeEach
+    void setUp() {
+        cities = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            cities.add(new City("Ville " + i, "N/A",
+                    42.5 + random.nextDouble() * 8.5,
+                    -4.5 + random.nextDouble() * 12.0,
+                    random.nextInt(10_000), "Bretagne", "Inconnu"));
+        }
+        index = CitySpatialIndex.build(cities, new GeographyService());
+        clusters = CityClusterIndex.build(index);
+    }
+
+    @Test
+    @DisplayName("Chaque niveau regroupe toutes les villes et toute la population")
+    void findClusters_FranceAtEachZoom_ShouldCoverAllCities() {
+        long totalPopulation = cities.stream().mapToLong(City::getPopulation).sum();
+
+        for (int zoom = 0; zoom <= CityClusterIndex.MAX_ZOOM; zoom++) {
+            // When
+            List<CityClusterIndex.Cluster> result = clusters.findClusters(41.0, -5.5, 51.5, 10.0, zoom);
+
+            // Then
+            assertEquals(cities.size(), result.stream().mapToInt(CityClusterIndex.Cluster::count).sum());
+            assertEquals(totalPopulation, result.stream().mapToLong(CityClusterIndex.Cluster::population).sum());
+        }
+    }
+
+    @Test
+    @DisplayName("Le nombre de groupes croît avec le zoom et reste borné")
+    void findClusters_ZoomIn_ShouldSplitClusters() {
+        // When
+        int coarse = clusters.findClusters(41.0, -5.5, 51.5, 10.0, 3).size();
+        int fine = clusters.findClusters(41.0, -5.5, 51.5, 10.0, 7).size();
+
+        // Then
+        assertTrue(coarse < fine);
+        assertTrue(clusters.findClusters(41.0, -5.5, 51.5, 10.0, 22).size() <= CityClusterIndex.MAX_CELLS);
+    }
+
+    @Test
+    @DisplayName("Un groupe d'une seule ville renvoie sa position")
+    void findClusters_SingleCity_ShouldExposePosition() {
+        // When
+        List<CityClusterIndex.Cluster> result = clusters.findClusters(41.0, -5.5, 51.5, 10.0, CityClusterIndex.MAX_ZOOM);
+
+        // Then
+        for (CityClusterIndex.Cluster cluster : result) {
+            if (cluster.count() == 1) {
+                assertEquals(index.getLatitude(cluster.position()), cluster.latitude(), 1e-9);
+                assertEquals(index.getLongitude(cluster.position()), cluster.longitude(), 1e-9);
+            } else {
+                assertEquals(-1, cluster.position());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Seuls les groupes de la zone affichée sont renvoyés")
+    void findClusters_SmallBoundingBox_ShouldOnlyCountCitiesInside() {
+        // Given
+        double minLat = 47.0, maxLat = 48.0, minLon = 1.0, maxLon = 2.0;
+
+        // When : au zoom maximal, les cellules sont plus petites que l'emprise
+        List<CityClusterIndex.Cluster> result = clusters.findClusters(minLat, minLon, maxLat, maxLon, CityClusterIndex.MAX_ZOOM);
+
+        // Then
+        long inside = cities.stream()
+                .filter(c -> c.getLatitude() >= minLat && c.getLatitude() <= maxLat)
+                .filter(c -> c.getLongitude() >= minLon && c.getLongitude() <= maxLon)
+                .count();
+        int counted = result.stream().mapToInt(CityClusterIndex.Cluster::count).sum();
+        assertTrue(inside > 0);
+        assertTrue(counted >= inside && counted <= inside + 5);
+    }
+}
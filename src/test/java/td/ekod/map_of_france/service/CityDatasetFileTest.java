@@ -0,0 +1,140 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import td.ekod.map_of_france.entity.City;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityDatasetFileTest {
+
+    private static final String[] REGIONS = {"Bretagne", "Occitanie", "Île-de-France"};
+
+    private static final String SOURCE = "classpath:fr.csv;102203;1a2b3c4d";
+
+    @TempDir
+    Path directory;
+
+    private GeographyService geographyService;
+    private CitySpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        geographyService = new GeographyService();
+        List<City> cities = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            City city = new City("Ville " + i, "N/A",
+                    41.5 + random.nextDouble() * 9.5,
+                    -4.5 + random.nextDouble() * 12.5,
+                    i % 10 == 0 ? null : random.nextInt(200_000),
+                    REGIONS[random.nextInt(REGIONS.length)],
+                    "Inconnu");
+            city.setId((long) i + 1);
+            cities.add(city);
+        }
+        index = CitySpatialIndex.build(cities, geographyService);
+    }
+
+    @Test
+    @DisplayName("Écriture puis lecture - colonnes et ordre de l'arbre identiques")
+    void writeThenRead_ShouldRestoreSameIndex() throws IOException {
+        // Given
+        Path file = directory.resolve("cities.bin");
+
+        // When
+        CityDatasetFile.write(index, SOURCE, file);
+        CitySpatialIndex restored = CityDatasetFile.read(file, SOURCE, geographyService);
+
+        // Then
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.getRegions(), restored.getRegions());
+        for (int position = 0; position < index.size(); position++) {
+            assertEquals(index.getId(position), restored.getId(position));
+            assertEquals(index.getName(position), restored.getName(position));
+            assertEquals(index.getLatitude(position), restored.getLatitude(position));
+            assertEquals(index.getLongitude(position), restored.getLongitude(position));
+            assertEquals(index.getPopulation(position), restored.getPopulation(position));
+            assertEquals(index.getRegion(position), restored.getRegion(position));
+        }
+        assertEquals(index.findPosition(1234), restored.findPosition(1234));
+        assertArrayEquals(
+                index.findNearest(46.5, 2.5, 20, 300.0, "Bretagne", 1000),
+                restored.findNearest(46.5, 2.5, 20, 300.0, "Bretagne", 1000));
+        assertArrayEquals(
+                sorted(index.findWithinRadius(48.0, 0.0, 150.0, "TOUTES", 0)),
+                sorted(restored.findWithinRadius(48.0, 0.0, 150.0, "TOUTES", 0)));
+    }
+
+    @Test
+    @DisplayName("Enregistrements de taille fixe et chaînes dédupliquées")
+    void write_ShouldProduceCompactFile() throws IOException {
+        // Given
+        Path file = directory.resolve("cities.bin");
+
+        // When
+        CityDatasetFile.write(index, SOURCE, file);
+
+        // Then
+        long records = (long) index.size() * CityDatasetFile.RECORD_BYTES;
+        long strings = 2000L * ("Ville 1999".length() + Integer.BYTES);
+        assertTrue(Files.size(file) > records);
+        assertTrue(Files.size(file) < records + strings);
+    }
+
+    @Test
+    @DisplayName("Fichier tronqué ou d'un autre format - IOException")
+    void read_WithInvalidFile_ShouldThrowIOException() throws IOException {
+        // Given
+        Path file = directory.resolve("cities.bin");
+        CityDatasetFile.write(index, SOURCE, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = Files.write(directory.resolve("truncated.bin"), Arrays.copyOf(bytes, bytes.length - 10));
+        Path foreign = Files.write(directory.resolve("foreign.bin"), "name,latitude".getBytes());
+
+        // When & Then
+        assertThrows(IOException.class, () -> CityDatasetFile.read(truncated, SOURCE, geographyService));
+        assertThrows(IOException.class, () -> CityDatasetFile.read(foreign, SOURCE, geographyService));
+    }
+
+    @Test
+    @DisplayName("Fichier issu d'une autre source - IOException")
+    void read_WithOtherSourceIdentity_ShouldThrowIOException() throws IOException {
+        // Given : copie générée depuis un autre fichier CSV
+        Path file = directory.resolve("cities.bin");
+        CityDatasetFile.write(index, "file:/data/autre.csv;102203;1a2b3c4d", file);
+
+        // When & Then
+        IOException e = assertThrows(IOException.class, () -> CityDatasetFile.read(file, SOURCE, geographyService));
+        assertTrue(e.getMessage().contains("autre source"));
+    }
+
+    @Test
+    @DisplayName("Fichier sans identité de source - jamais relu")
+    void read_WithBlankSourceIdentity_ShouldThrowIOException() throws IOException {
+        // Given : copie écrite par une source qui ne sait pas identifier ses données
+        Path file = directory.resolve("cities.bin");
+        CityDatasetFile.write(index, "", file);
+
+        // When & Then
+        IOException e = assertThrows(IOException.class, () -> CityDatasetFile.read(file, "", geographyService));
+        assertTrue(e.getMessage().contains("sans identité"));
+        assertThrows(IOException.class, () -> CityDatasetFile.read(file, SOURCE, geographyService));
+    }
+
+    private static int[] sorted(int[] positions) {
+        int[] copy = positions.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,89 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class CityIndexRefresherTest {
+
+    private CityIndexService cityIndexService;
+    private CityIndexRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        cityIndexService = mock(CityIndexService.class);
+        refresher = new CityIndexRefresher();
+        ReflectionTestUtils.setField(refresher, "cityIndexService", cityIndexService);
+        ReflectionTestUtils.setField(refresher, "vectorTileService", mock(VectorTileService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        refresher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Demandes pendant une reconstruction - regroupées en une seule suivante")
+    void requestRefresh_DuringRefresh_ShouldCoalesceRequests() throws Exception {
+        // Given : la première reconstruction reste bloquée
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        Thread[] refreshThread = new Thread[1];
+        AtomicInteger refreshes = new AtomicInteger();
+        doAnswer(invocation -> {
+            refreshes.incrementAndGet();
+            refreshThread[0] = Thread.currentThread();
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(cityIndexService).refresh();
+
+        // When
+        refresher.requestRefresh();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            refresher.requestRefresh();
+        }
+        release.countDown();
+
+        // Then : une reconstruction en cours, une seule autre pour les 10 demandes, hors du thread appelant
+        for (int i = 0; i < 1000 && refreshes.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(2, refreshes.get());
+        assertNotSame(caller, refreshThread[0]);
+    }
+
+    @Test
+    @DisplayName("Échec d'une reconstruction - les suivantes restent possibles")
+    void requestRefresh_AfterFailure_ShouldRefreshAgain() throws Exception {
+        // Given
+        CountDownLatch attempts = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            attempts.countDown();
+            throw new IllegalStateException("Source indisponible");
+        }).when(cityIndexService).refresh();
+
+        // When
+        refresher.requestRefresh();
+        for (int i = 0; i < 1000 && attempts.getCount() == 2; i++) {
+            Thread.sleep(10);
+        }
+        refresher.requestRefresh();
+
+        // Then
+        assertTrue(attempts.await(10, TimeUnit.SECONDS));
+    }
+}
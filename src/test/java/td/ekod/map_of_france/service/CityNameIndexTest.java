@@ -0,0 +1,86 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import td.ekod.map_of_france.entity.City;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityNameIndexTest {
+
+    private CitySpatialIndex cities;
+    private CityNameIndex nameIndex;
+
+    @BeforeEach
+    void setUp() {
+        List<City> list = List.of(
+                new City("Saint-Étienne", "N/A", 45.4397, 4.3872, 171924, "Auvergne-Rhône-Alpes", "Inconnu"),
+                new City("Saint-Denis", "N/A", 48.9362, 2.3574, 111135, "Île-de-France", "Inconnu"),
+                new City("Étampes", "N/A", 48.4344, 2.1619, 24761, "Île-de-France", "Inconnu"),
+                new City("Paris", "N/A", 48.8566, 2.3522, 2148271, "Île-de-France", "Inconnu"),
+                new City("Cœuvres-et-Valsery", "N/A", 49.3333, 3.15, 400, "Hauts-de-France", "Inconnu"),
+                new City("Saint-Paul", "N/A", 43.7, 7.12, 3500, "Provence-Alpes-Côte d’Azur", "Inconnu"));
+        cities = CitySpatialIndex.build(list, new GeographyService());
+        nameIndex = CityNameIndex.build(cities);
+    }
+
+    private String[] names(int[] positions) {
+        return Arrays.stream(positions).mapToObj(cities::getName).toArray(String[]::new);
+    }
+
+    @Test
+    @DisplayName("Normalisation - accents, ligatures et ponctuation")
+    void fold_ShouldRemoveAccentsAndPunctuation() {
+        assertEquals("saint etienne", CityNameIndex.fold("Saint-Étienne"));
+        assertEquals("coeuvres et valsery", CityNameIndex.fold("Cœuvres-et-Valsery"));
+        assertEquals("l isle", CityNameIndex.fold(" L’Isle "));
+    }
+
+    @Test
+    @DisplayName("Recherche sans accents, classée par population")
+    void search_WithoutAccents_ShouldReturnByPopulation() {
+        // When
+        int[] positions = nameIndex.search("saint", 10);
+
+        // Then
+        assertArrayEquals(new String[]{"Saint-Étienne", "Saint-Denis", "Saint-Paul"}, names(positions));
+    }
+
+    @Test
+    @DisplayName("Recherche au milieu du nom")
+    void search_Substring_ShouldMatch() {
+        // When & Then
+        assertArrayEquals(new String[]{"Étampes"}, names(nameIndex.search("tamp", 10)));
+        assertArrayEquals(new String[]{"Cœuvres-et-Valsery"}, names(nameIndex.search("COEUVRES", 10)));
+    }
+
+    @Test
+    @DisplayName("La limite est respectée")
+    void search_WithLimit_ShouldTruncate() {
+        // When
+        int[] positions = nameIndex.search("saint", 2);
+
+        // Then
+        assertArrayEquals(new String[]{"Saint-Étienne", "Saint-Denis"}, names(positions));
+    }
+
+    @Test
+    @DisplayName("Requête de deux caractères")
+    void search_TwoCharacters_ShouldScanByRank() {
+        // When
+        int[] positions = nameIndex.search("pa", 10);
+
+        // Then
+        assertArrayEquals(new String[]{"Paris", "Saint-Paul"}, names(positions));
+    }
+
+    @Test
+    @DisplayName("Aucune correspondance")
+    void search_NoMatch_ShouldReturnEmpty() {
+        assertEquals(0, nameIndex.search("marseille", 10).length);
+    }
+}
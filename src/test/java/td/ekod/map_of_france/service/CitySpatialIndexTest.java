@@ -0,0 +1,250 @@
+package td.ekod.map_of_france.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import td.ekod.map_of_france.entity.City;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CitySpatialIndexTest {
+
+    private static final String[] REGIONS = {"Bretagne", "Occitanie", "Île-de-France"};
+
+    private GeographyService geographyService;
+    private List<City> cities;
+    private CitySpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        geographyService = new GeographyService();
+        cities = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            City city = new City("Ville " + i, "N/A",
+                    41.5 + random.nextDouble() * 9.5,
+                    -4.5 + random.nextDouble() * 12.5,
+                    random.nextInt(200_000),
+                    REGIONS[random.nextInt(REGIONS.length)],
+                    "Inconnu");
+            city.setId((long) i + 1);
+            cities.add(city);
+        }
+        index = CitySpatialIndex.build(cities, geographyService);
+    }
+
+    @Test
+    @DisplayName("Recherche par rayon - identique à un parcours exhaustif")
+    void findWithinRadius_ShouldMatchBruteForce() {
+        // Given
+        double lat = 46.5;
+        double lon = 2.5;
+        double radius = 150.0;
+
+        // When
+        long[] actual = Arrays.stream(index.findWithinRadius(lat, lon, radius, "TOUTES", 50_000))
+                .mapToLong(index::getId)
+                .sorted()
+                .toArray();
+
+        // Then
+        long[] expected = cities.stream()
+                .filter(c -> c.getPopulation() >= 50_000)
+                .filter(c -> geographyService.calculateExactHaversineDistance(lat, lon, c.getLatitude(), c.getLongitude()) <= radius)
+                .mapToLong(City::getId)
+                .sorted()
+                .toArray();
+        assertTrue(expected.length > 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Recherche par rayon - filtre de région")
+    void findWithinRadius_WithRegion_ShouldOnlyReturnRegion() {
+        // When
+        int[] positions = index.findWithinRadius(46.5, 2.5, 1000.0, "Bretagne", 0);
+
+        // Then
+        assertTrue(positions.length > 0);
+        for (int position : positions) {
+            assertEquals("Bretagne", index.getRegion(position));
+        }
+    }
+
+    @Test
+    @DisplayName("Recherche par rayon - région inconnue")
+    void findWithinRadius_WithUnknownRegion_ShouldReturnNothing() {
+        // When
+        int[] positions = index.findWithinRadius(46.5, 2.5, 1000.0, "Atlantide", null);
+
+        // Then
+        assertEquals(0, positions.length);
+    }
+
+    @Test
+    @DisplayName("k plus proches voisins - identique à un tri exhaustif")
+    void findNearest_ShouldMatchBruteForce() {
+        // Given
+        double lat = 48.8566;
+        double lon = 2.3522;
+        int k = 25;
+
+        // When
+        long[] actual = Arrays.stream(index.findNearest(lat, lon, k, Double.MAX_VALUE, "Occitanie", null))
+                .mapToLong(index::getId)
+                .toArray();
+
+        // Then
+        long[] expected = cities.stream()
+                .filter(c -> c.getRegion().equals("Occitanie"))
+                .sorted(Comparator.comparingDouble((City c) ->
+                        geographyService.calculateExactHaversineDistance(lat, lon, c.getLatitude(), c.getLongitude())))
+                .limit(k)
+                .mapToLong(City::getId)
+                .toArray();
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("k plus proches voisins - borné par la distance maximale")
+    void findNearest_WithMaxDistance_ShouldStopAtRadius() {
+        // When
+        int[] positions = index.findNearest(46.5, 2.5, 1000, 50.0, null, null);
+
+        // Then
+        assertTrue(positions.length < 1000);
+        assertEquals(index.findWithinRadius(46.5, 2.5, 50.0, null, null).length, positions.length);
+    }
+
+    @Test
+    @DisplayName("Index vide")
+    void build_WithNoCities_ShouldAnswerEmpty() {
+        // Given
+        CitySpatialIndex empty = CitySpatialIndex.build(List.of(), geographyService);
+
+        // Then
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.findWithinRadius(46.5, 2.5, 100.0, null, null).length);
+        assertEquals(0, empty.findNearest(46.5, 2.5, 10, 100.0, null, null).length);
+    }
+
+    @Test
+    @DisplayName("Plus proches parmi des candidats - identique à la recherche dans l'index")
+    void findNearestAmong_Superset_ShouldMatchFindNearest() {
+        // Given : candidats d'un cercle plus large centré à côté du point
+        int[] candidates = index.findWithinRadius(46.6, 2.6, 130.0, "Occitanie", 10_000);
+
+        // When
+        int[] actual = index.findNearestAmong(candidates, 46.5, 2.5, 20, 100.0);
+
+        // Then
+        int[] expected = index.findNearest(46.5, 2.5, 20, 100.0, "Occitanie", 10_000);
+        assertTrue(expected.length > 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Recherche par emprise - identique à un parcours exhaustif")
+    void findWithinBounds_ShouldMatchBruteForce() {
+        // When
+        long[] actual = Arrays.stream(index.findWithinBounds(45.0, 47.5, 0.5, 3.0))
+                .mapToLong(index::getId)
+                .sorted()
+                .toArray();
+
+        // Then
+        long[] expected = cities.stream()
+                .filter(c -> c.getLatitude() >= 45.0 && c.getLatitude() <= 47.5)
+                .filter(c -> c.getLongitude() >= 0.5 && c.getLongitude() <= 3.0)
+                .mapToLong(City::getId)
+                .sorted()
+                .toArray();
+        assertTrue(expected.length > 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Recherche par polygone - identique à un parcours exhaustif")
+    void findWithinPolygon_ShouldMatchBruteForce() throws Exception {
+        // Given : triangle couvrant le centre de la France
+        GeoPolygon polygon = GeoPolygon.fromGeoJson(new ObjectMapper().readTree(
+                "{\"type\": \"Polygon\", \"coordinates\": [[[-1.0, 44.0], [6.0, 45.0], [2.0, 49.5], [-1.0, 44.0]]]}"));
+
+        // When
+        long[] actual = Arrays.stream(index.findWithinPolygon(polygon, "Occitanie", null, 20_000))
+                .mapToLong(index::getId)
+                .sorted()
+                .toArray();
+
+        // Then
+        long[] expected = cities.stream()
+                .filter(c -> "Occitanie".equals(c.getRegion()) && c.getPopulation() >= 20_000)
+                .filter(c -> polygon.contains(c.getLatitude(), c.getLongitude()))
+                .mapToLong(City::getId)
+                .sorted()
+                .toArray();
+        assertTrue(expected.length > 0);
+        assertArrayEquals(expected, actual);
+        assertEquals(0, index.findWithinPolygon(polygon, "TOUTES", "Finistère", null).length);
+        assertEquals(cities.size(), index.findWithinPolygon(null, null, "inconnu", null).length);
+    }
+
+    @Test
+    @DisplayName("Tri par population - décroissante")
+    void sortByPopulation_ShouldRankMostPopulatedFirst() {
+        // When
+        int[] sorted = index.sortByPopulation(index.findWithinBounds(45.0, 47.5, 0.5, 3.0));
+
+        // Then
+        assertTrue(sorted.length > 1);
+        for (int i = 1; i < sorted.length; i++) {
+            assertTrue(index.getPopulation(sorted[i - 1]) >= index.getPopulation(sorted[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("Recherche des plus proches avec tampons réutilisés - allocation bornée, indépendante de k")
+    void findNearest_WithBuffers_ShouldStayWithinAllocationBudget() {
+        // Given
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        int[] candidates = index.findWithinRadius(46.5, 2.5, 200.0, "TOUTES", null);
+        SearchBuffers buffers = SearchBuffers.acquire();
+        int calls = 20_000;
+        for (int i = 0; i < calls; i++) {
+            search(candidates, buffers, i);
+        }
+
+        // When
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int found = 0;
+        for (int i = 0; i < calls; i++) {
+            found += search(candidates, buffers, i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        buffers.release();
+
+        // Then : seuls le point de requête et l'état de la recherche sont alloués, pas de tableau
+        assertTrue(found > 0);
+        double perSearch = (double) allocated / (2L * calls);
+        assertTrue(perSearch < 256, "Octets alloués par recherche : " + perSearch);
+    }
+
+    private int search(int[] candidates, SearchBuffers buffers, int i) {
+        double lat = 46.0 + (i % 10) * 0.1;
+        double lon = 2.0 + (i % 7) * 0.1;
+        return index.findNearest(lat, lon, 200, 100.0, "TOUTES", null, buffers)
+                + index.findNearestAmong(candidates, lat, lon, 200, 50.0, buffers);
+    }
+}
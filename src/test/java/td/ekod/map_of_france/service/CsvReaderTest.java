@@ -0,0 +1,71 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    @DisplayName("Lecture de champs simples")
+    void readRecord_SimpleFields_ShouldSplitOnComma() throws IOException {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("Paris,48.8566,2.3522\nLyon,45.76,4.84\n"));
+
+        // When & Then
+        assertArrayEquals(new String[]{"Paris", "48.8566", "2.3522"}, reader.readRecord());
+        assertArrayEquals(new String[]{"Lyon", "45.76", "4.84"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    @DisplayName("Virgule et guillemets doublés dans un champ entre guillemets")
+    void readRecord_QuotedFieldWithComma_ShouldKeepComma() throws IOException {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("\"Saint-Denis, La Réunion\",\"Dit \"\"974\"\"\",0\n"));
+
+        // When
+        String[] fields = reader.readRecord();
+
+        // Then
+        assertArrayEquals(new String[]{"Saint-Denis, La Réunion", "Dit \"974\"", "0"}, fields);
+    }
+
+    @Test
+    @DisplayName("Retour à la ligne dans un champ et fins de ligne CRLF")
+    void readRecord_MultilineFieldAndCrlf_ShouldTrackLineNumbers() throws IOException {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("\"a\nb\",c\r\nd,e"));
+
+        // When & Then
+        assertArrayEquals(new String[]{"a\nb", "c"}, reader.readRecord());
+        assertEquals(2, reader.getLineNumber());
+        assertArrayEquals(new String[]{"d", "e"}, reader.readRecord());
+        assertEquals(3, reader.getLineNumber());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    @DisplayName("Champs vides")
+    void readRecord_EmptyFields_ShouldReturnEmptyStrings() throws IOException {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader(",,\n"));
+
+        // When & Then
+        assertArrayEquals(new String[]{"", "", ""}, reader.readRecord());
+    }
+
+    @Test
+    @DisplayName("Guillemet non refermé")
+    void readRecord_UnterminatedQuote_ShouldThrow() {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("\"Paris,48.8566\n"));
+
+        // When & Then
+        assertThrows(IOException.class, reader::readRecord);
+    }
+}
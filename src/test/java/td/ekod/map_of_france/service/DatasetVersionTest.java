@@ -0,0 +1,67 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import td.ekod.map_of_france.entity.City;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetVersionTest {
+
+    private final GeographyService geographyService = new GeographyService();
+
+    @Test
+    @DisplayName("Même contenu - même empreinte, d'un index à l'autre")
+    void of_WithSameCities_ShouldReturnSameHash() {
+        // Given
+        List<City> cities = List.of(city(1, "Paris", 2_100_000), city(2, "Lyon", 500_000));
+
+        // When
+        DatasetVersion first = DatasetVersion.of(CitySpatialIndex.build(cities, geographyService));
+        DatasetVersion second = DatasetVersion.of(CitySpatialIndex.build(cities, geographyService));
+
+        // Then
+        assertEquals(first, second);
+        assertEquals(first.eTag("application/json"), second.eTag("application/json"));
+    }
+
+    @Test
+    @DisplayName("Ville modifiée - nouvelle empreinte")
+    void of_WithModifiedCity_ShouldChangeHash() {
+        // Given
+        DatasetVersion before = DatasetVersion.of(CitySpatialIndex.build(
+                List.of(city(1, "Paris", 2_100_000), city(2, "Lyon", 500_000)), geographyService));
+
+        // When
+        DatasetVersion after = DatasetVersion.of(CitySpatialIndex.build(
+                List.of(city(1, "Paris", 2_100_001), city(2, "Lyon", 500_000)), geographyService));
+
+        // Then
+        assertNotEquals(before.hash(), after.hash());
+    }
+
+    @Test
+    @DisplayName("ETag fort, distinct par représentation négociée")
+    void eTag_ShouldBeStrongAndVaryWithAccept() {
+        // Given
+        DatasetVersion version = DatasetVersion.of(CitySpatialIndex.build(
+                List.of(city(1, "Paris", 2_100_000)), geographyService));
+
+        // When
+        String json = version.eTag("application/json");
+        String ndjson = version.eTag("application/x-ndjson");
+
+        // Then
+        assertTrue(json.startsWith("\"") && json.endsWith("\""));
+        assertNotEquals(json, ndjson);
+        assertEquals("\"" + version.hash() + "\"", version.eTag(null));
+    }
+
+    private static City city(long id, String name, int population) {
+        City city = new City(name, "N/A", 45.0 + id, 2.0 + id, population, "Région", "Inconnu");
+        city.setId(id);
+        return city;
+    }
+}
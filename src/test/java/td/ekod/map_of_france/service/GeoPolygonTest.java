@@ -0,0 +1,166 @@
+package td.ekod.map_of_france.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoPolygonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Carré avec un trou - le trou est exclu")
+    void contains_PolygonWithHole_ShouldExcludeHole() throws Exception {
+        // Given : carré 45-47 N / 1-3 E, trou 45.5-46.5 N / 1.5-2.5 E
+        GeoPolygon polygon = GeoPolygon.fromGeoJson(json("""
+                {"type": "Polygon", "coordinates": [
+                  [[1, 45], [3, 45], [3, 47], [1, 47], [1, 45]],
+                  [[1.5, 45.5], [1.5, 46.5], [2.5, 46.5], [2.5, 45.5], [1.5, 45.5]]
+                ]}"""));
+
+        // When & Then
+        assertTrue(polygon.contains(45.2, 1.2));
+        assertTrue(polygon.contains(46.8, 2.9));
+        assertFalse(polygon.contains(46.0, 2.0));
+        assertFalse(polygon.contains(44.9, 2.0));
+        assertFalse(polygon.contains(46.0, 3.1));
+        assertEquals(45.0, polygon.getMinLatitude());
+        assertEquals(3.0, polygon.getMaxLongitude());
+        assertEquals(8, polygon.getVertexCount());
+    }
+
+    @Test
+    @DisplayName("Polygone concave en étoile - identique à un lancer de rayon naïf")
+    void contains_ConcavePolygon_ShouldMatchNaiveRayCasting() {
+        // Given : étoile irrégulière de 200 sommets autour de (46.5, 2.5)
+        Random random = new Random(42);
+        int n = 200;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        StringBuilder ring = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double radius = 0.5 + random.nextDouble() * 2.5;
+            lats[i] = 46.5 + radius * Math.sin(angle);
+            lons[i] = 2.5 + radius * Math.cos(angle);
+            ring.append(i > 0 ? "," : "").append('[').append(lons[i]).append(',').append(lats[i]).append(']');
+        }
+        GeoPolygon polygon = GeoPolygon.fromGeoJson(json(
+                "{\"type\": \"Polygon\", \"coordinates\": [[" + ring + "]]}"));
+
+        // When & Then
+        for (int i = 0; i < 20_000; i++) {
+            double lat = 43.0 + random.nextDouble() * 7.0;
+            double lon = -1.0 + random.nextDouble() * 7.0;
+            assertEquals(naiveContains(lats, lons, lat, lon), polygon.contains(lat, lon),
+                    "Point (" + lat + ", " + lon + ")");
+        }
+    }
+
+    @Test
+    @DisplayName("MultiPolygon et Feature - chaque partie est incluse")
+    void fromGeoJson_MultiPolygonFeature_ShouldContainEveryPart() {
+        // Given
+        GeoPolygon polygon = GeoPolygon.fromGeoJson(json("""
+                {"type": "Feature", "properties": {}, "geometry": {"type": "MultiPolygon", "coordinates": [
+                  [[[0, 43], [1, 43], [1, 44], [0, 44]]],
+                  [[[5, 48], [6, 48], [6, 49], [5, 49], [5, 48]]]
+                ]}}"""));
+
+        // When & Then
+        assertTrue(polygon.contains(43.5, 0.5));
+        assertTrue(polygon.contains(48.5, 5.5));
+        assertFalse(polygon.contains(46.0, 3.0));
+    }
+
+    @Test
+    @DisplayName("Zigzag sur toute la hauteur - table des bandes bornée")
+    void fromGeoJson_ZigZagPolygon_ShouldBoundBandTable() {
+        // Given : 5 000 sommets alternant entre 41 N et 51 N, chaque arête traversant toutes les latitudes
+        int n = 5_000;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = i % 2 == 0 ? 41.0 : 51.0;
+            lons[i] = -5.0 + 15.0 * i / n;
+        }
+
+        // When
+        GeoPolygon polygon = GeoPolygon.fromGeoJson(json(zigZag(lats, lons)));
+
+        // Then
+        assertTrue(polygon.getBandEntryCount() <= GeoPolygon.MAX_BAND_ENTRIES);
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            double lat = 40.5 + random.nextDouble() * 11.0;
+            double lon = -5.5 + random.nextDouble() * 16.0;
+            assertEquals(naiveContains(lats, lons, lat, lon), polygon.contains(lat, lon),
+                    "Point (" + lat + ", " + lon + ")");
+        }
+    }
+
+    @Test
+    @DisplayName("Zigzag de 100 000 sommets - refusé comme trop complexe")
+    void fromGeoJson_PathologicalZigZag_ShouldThrow() {
+        // Given
+        int n = GeoPolygon.MAX_VERTICES;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = i % 2 == 0 ? 41.0 : 51.0;
+            lons[i] = -5.0 + 15.0 * i / n;
+        }
+        JsonNode geometry = json(zigZag(lats, lons));
+
+        // When & Then
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> GeoPolygon.fromGeoJson(geometry));
+        assertTrue(e.getMessage().startsWith("Géométrie trop complexe"));
+    }
+
+    @Test
+    @DisplayName("Géométries invalides - rejetées avec un message")
+    void fromGeoJson_InvalidGeometry_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(null));
+        assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(json(
+                "{\"type\": \"LineString\", \"coordinates\": [[0, 43], [1, 44]]}")));
+        assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(json(
+                "{\"type\": \"Polygon\", \"coordinates\": [[[0, 43], [1, 44], [0, 43]]]}")));
+        assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(json(
+                "{\"type\": \"Polygon\", \"coordinates\": [[[0, 43], [1, 95], [2, 43]]]}")));
+        assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(json(
+                "{\"type\": \"Polygon\"}")));
+    }
+
+    private JsonNode json(String text) {
+        try {
+            return objectMapper.readTree(text);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String zigZag(double[] lats, double[] lons) {
+        StringBuilder ring = new StringBuilder();
+        for (int i = 0; i < lats.length; i++) {
+            ring.append(i > 0 ? "," : "").append('[').append(lons[i]).append(',').append(lats[i]).append(']');
+        }
+        return "{\"type\": \"Polygon\", \"coordinates\": [[" + ring + "]]}";
+    }
+
+    private static boolean naiveContains(double[] lats, double[] lons, double lat, double lon) {
+        boolean inside = false;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            if ((lats[i] > lat) != (lats[j] > lat)
+                    && lon < (lons[j] - lons[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GeographyServiceTest {
@@ -160,4 +162,90 @@ class GeographyServiceTest {
         // Then
         assertTrue(result);
     }
+
+    @Test
+    @DisplayName("Distance rapide depuis un point préparé - identique à Haversine")
+    void calculateExactHaversineDistance_PreparedPoint_ShouldMatchHaversine() {
+        // Given
+        GeoPoint paris = new GeoPoint(48.8566, 2.3522);
+        double lyonLatRad = Math.toRadians(45.76);
+        double lyonLonRad = Math.toRadians(4.84);
+
+        // When
+        double fast = geographyService.calculateExactHaversineDistance(paris, lyonLatRad, lyonLonRad, Math.cos(lyonLatRad));
+        double reference = geographyService.calculateExactHaversineDistance(48.8566, 2.3522, 45.76, 4.84);
+
+        // Then
+        assertEquals(reference, fast, 1e-9);
+    }
+
+    @Test
+    @DisplayName("Pré-filtre équirectangulaire - n'exclut jamais un point dans le rayon")
+    void isClearlyBeyond_ShouldNeverRejectPointWithinRadius() {
+        // Given
+        GeoPoint center = new GeoPoint(46.5, 2.5);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10_000; i++) {
+            double lat = 41.0 + random.nextDouble() * 10.5;
+            double lon = -5.5 + random.nextDouble() * 15.0;
+            double radius = 1.0 + random.nextDouble() * 1000.0;
+            double latRad = Math.toRadians(lat);
+            double lonRad = Math.toRadians(lon);
+
+            // When
+            boolean beyond = geographyService.isClearlyBeyond(center, latRad, lonRad, Math.cos(latRad),
+                    geographyService.calculateHaversineTerm(radius));
+            double distance = geographyService.calculateExactHaversineDistance(46.5, 2.5, lat, lon);
+
+            // Then
+            if (beyond) {
+                assertTrue(distance > radius, "Point exclu à tort à " + distance + " km pour un rayon de " + radius);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Pré-filtre équirectangulaire - exclut un point lointain")
+    void isClearlyBeyond_FarPoint_ShouldReturnTrue() {
+        // Given - Lyon est à environ 392 km de Paris
+        GeoPoint paris = new GeoPoint(48.8566, 2.3522);
+        double lyonLatRad = Math.toRadians(45.76);
+
+        // When
+        boolean beyond = geographyService.isClearlyBeyond(paris, lyonLatRad, Math.toRadians(4.84), Math.cos(lyonLatRad),
+                geographyService.calculateHaversineTerm(300.0));
+
+        // Then
+        assertTrue(beyond);
+    }
+
+    @Test
+    @DisplayName("Distances en série - identiques au calcul unitaire")
+    void calculateExactHaversineDistances_ShouldMatchSingleDistance() {
+        // Given
+        Random random = new Random(42);
+        int n = 500;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = 41.0 + random.nextDouble() * 10.5;
+            longitudes[i] = -5.5 + random.nextDouble() * 15.0;
+        }
+        GeographyService.PointColumns points = geographyService.preparePoints(latitudes, longitudes);
+        double[] row = new double[n + 3];
+
+        for (int i = 0; i < n; i += 37) {
+            // When
+            geographyService.calculateExactHaversineDistances(points, i, points, row, 3);
+
+            // Then
+            for (int j = 0; j < n; j++) {
+                double expected = geographyService.calculateExactHaversineDistance(
+                        latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+                assertEquals(expected, row[3 + j], 1e-6);
+            }
+            assertEquals(0.0, row[3 + i], 1e-6);
+        }
+    }
 }
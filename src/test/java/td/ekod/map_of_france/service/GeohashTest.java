@@ -0,0 +1,55 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    @DisplayName("Encodage d'un point connu")
+    void encode_Paris_ShouldMatchReferenceHash() {
+        assertEquals("u09tv", Geohash.encode(48.8566, 2.3522, 5));
+        assertEquals("u09t", Geohash.encode(48.8566, 2.3522, 4));
+    }
+
+    @Test
+    @DisplayName("La cellule décodée contient le point et a la taille attendue")
+    void decodeBounds_ShouldContainPoint() {
+        // Given
+        double latitude = 43.2965;
+        double longitude = 5.3698;
+
+        for (int precision = 1; precision <= Geohash.MAX_PRECISION; precision++) {
+            // When
+            double[] bounds = Geohash.decodeBounds(Geohash.encode(latitude, longitude, precision));
+
+            // Then
+            assertTrue(bounds[0] <= latitude && latitude < bounds[1]);
+            assertTrue(bounds[2] <= longitude && longitude < bounds[3]);
+            assertEquals(Geohash.cellHeightDegrees(precision), bounds[1] - bounds[0], 1e-12);
+            assertEquals(Geohash.cellWidthDegrees(precision), bounds[3] - bounds[2], 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("Forme numérique équivalente à la chaîne")
+    void encodeBits_ShouldMatchStringHash() {
+        for (int precision = 1; precision <= Geohash.MAX_PRECISION; precision++) {
+            // When
+            long bits = Geohash.encodeBits(48.8566, 2.3522, precision);
+            String hash = Geohash.encode(48.8566, 2.3522, precision);
+
+            // Then
+            assertEquals(0, bits >>> (5 * precision));
+            assertArrayEquals(Geohash.decodeBounds(hash), Geohash.decodeBounds(bits, precision));
+        }
+    }
+
+    @Test
+    @DisplayName("Caractère invalide")
+    void decodeBounds_InvalidCharacter_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.decodeBounds("u0a"));
+    }
+}
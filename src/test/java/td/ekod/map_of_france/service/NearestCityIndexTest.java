@@ -0,0 +1,106 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import td.ekod.map_of_france.entity.City;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearestCityIndexTest {
+
+    private GeographyService geographyService;
+    private CitySpatialIndex index;
+    private NearestCityIndex nearestIndex;
+
+    @BeforeEach
+    void setUp() {
+        geographyService = new GeographyService();
+        List<City> cities = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            // Villes regroupées autour de quelques centres, comme les agglomérations
+            double lat = 43.0 + random.nextInt(8) + random.nextGaussian() * 0.3;
+            double lon = -1.0 + random.nextInt(8) + random.nextGaussian() * 0.3;
+            City city = new City("Ville " + i, "N/A", lat, lon,
+                    random.nextInt(10) == 0 ? random.nextInt(2_000_000) : random.nextInt(5_000),
+                    "Occitanie", "Inconnu");
+            city.setId((long) i + 1);
+            cities.add(city);
+        }
+        index = CitySpatialIndex.build(cities, geographyService);
+        nearestIndex = NearestCityIndex.build(index, geographyService);
+    }
+
+    @Test
+    @DisplayName("Ville la plus proche - identique à un parcours exhaustif, dans et hors de la grille")
+    void findNearest_ShouldMatchBruteForce() {
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            // Given
+            double lat = 41.0 + random.nextDouble() * 11.0;
+            double lon = -3.0 + random.nextDouble() * 12.0;
+
+            // When
+            int actual = nearestIndex.findNearest(lat, lon);
+
+            // Then
+            assertEquals(bruteForce(lat, lon, false), actual, "Point (" + lat + ", " + lon + ")");
+        }
+    }
+
+    @Test
+    @DisplayName("Ville la plus proche pondérée par la population - identique à un parcours exhaustif")
+    void findNearestWeighted_ShouldMatchBruteForce() {
+        Random random = new Random(11);
+        int differentFromNearest = 0;
+        for (int i = 0; i < 5_000; i++) {
+            // Given
+            double lat = 43.0 + random.nextDouble() * 8.0;
+            double lon = -1.0 + random.nextDouble() * 8.0;
+
+            // When
+            int actual = nearestIndex.findNearestWeighted(lat, lon);
+
+            // Then
+            assertEquals(bruteForce(lat, lon, true), actual, "Point (" + lat + ", " + lon + ")");
+            if (actual != nearestIndex.findNearest(lat, lon)) {
+                differentFromNearest++;
+            }
+        }
+        assertTrue(differentFromNearest > 0);
+    }
+
+    @Test
+    @DisplayName("Index vide - aucune ville")
+    void findNearest_WithNoCities_ShouldReturnMinusOne() {
+        // Given
+        NearestCityIndex empty = NearestCityIndex.build(CitySpatialIndex.build(List.of(), geographyService), geographyService);
+
+        // When & Then
+        assertEquals(-1, empty.findNearest(46.5, 2.5));
+        assertEquals(-1, empty.findNearestWeighted(46.5, 2.5));
+    }
+
+    private int bruteForce(double lat, double lon, boolean weighted) {
+        int best = -1;
+        double bestScore = Double.MAX_VALUE;
+        for (int position = 0; position < index.size(); position++) {
+            double score = geographyService.calculateExactHaversineDistance(lat, lon,
+                    index.getLatitude(position), index.getLongitude(position));
+            if (weighted) {
+                score /= 1.0 + Math.log10(1.0 + index.getPopulation(position) / 10_000.0);
+            }
+            if (best < 0 || score < bestScore
+                    || score == bestScore && index.getPopulation(position) > index.getPopulation(best)) {
+                best = position;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
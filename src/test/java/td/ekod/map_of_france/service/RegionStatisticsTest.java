@@ -0,0 +1,69 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import td.ekod.map_of_france.dto.RegionStatisticsDto;
+import td.ekod.map_of_france.entity.City;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionStatisticsTest {
+
+    private final GeographyService geographyService = new GeographyService();
+
+    @Test
+    @DisplayName("Agrégats par région calculés depuis l'index")
+    void compute_ShouldAggregateEachRegion() {
+        // Given
+        CitySpatialIndex index = CitySpatialIndex.build(List.of(
+                city(1, 48.0, -3.0, 1000, "Bretagne"),
+                city(2, 47.0, -1.0, 3000, "Bretagne"),
+                city(3, 43.6, 1.4, null, "Occitanie"),
+                city(4, 48.85, 2.35, 2_000_000, "Île-de-France")), geographyService);
+
+        // When
+        List<RegionStatisticsDto> statistics = RegionStatistics.compute(index);
+
+        // Then
+        assertEquals(List.of("Bretagne", "Occitanie", "Île-de-France"),
+                statistics.stream().map(RegionStatisticsDto::region).toList());
+
+        RegionStatisticsDto bretagne = statistics.get(0);
+        assertEquals(2, bretagne.cityCount());
+        assertEquals(4000, bretagne.totalPopulation());
+        assertEquals(1000, bretagne.minPopulation());
+        assertEquals(3000, bretagne.maxPopulation());
+        assertEquals(47.5, bretagne.centroidLatitude(), 1e-9);
+        assertEquals(-2.0, bretagne.centroidLongitude(), 1e-9);
+        assertEquals(47.0, bretagne.minLatitude());
+        assertEquals(48.0, bretagne.maxLatitude());
+        assertEquals(-3.0, bretagne.minLongitude());
+        assertEquals(-1.0, bretagne.maxLongitude());
+    }
+
+    @Test
+    @DisplayName("Région sans population connue - bornes de population nulles")
+    void compute_WithoutPopulation_ShouldLeavePopulationBoundsEmpty() {
+        // Given
+        CitySpatialIndex index = CitySpatialIndex.build(List.of(
+                city(1, 43.6, 1.4, null, "Occitanie")), geographyService);
+
+        // When
+        RegionStatisticsDto occitanie = RegionStatistics.compute(index).get(0);
+
+        // Then
+        assertEquals(1, occitanie.cityCount());
+        assertEquals(0, occitanie.totalPopulation());
+        assertNull(occitanie.minPopulation());
+        assertNull(occitanie.maxPopulation());
+        assertEquals(43.6, occitanie.centroidLatitude(), 1e-9);
+    }
+
+    private static City city(long id, double latitude, double longitude, Integer population, String region) {
+        City city = new City("Ville " + id, "N/A", latitude, longitude, population, region, "Inconnu");
+        city.setId(id);
+        return city;
+    }
+}
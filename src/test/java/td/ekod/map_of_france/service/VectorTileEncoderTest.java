@@ -0,0 +1,120 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorTileEncoderTest {
+
+    /** Champ protobuf lu : numéro, varint ou octets */
+    private record Field(int number, long varint, byte[] bytes) {}
+
+    /** Lecteur protobuf minimal pour vérifier la structure de la tuile */
+    private static List<Field> parse(byte[] data) {
+        List<Field> fields = new ArrayList<>();
+        int[] offset = {0};
+        while (offset[0] < data.length) {
+            long tag = readVarint(data, offset);
+            int wireType = (int) (tag & 7);
+            if (wireType == 0) {
+                fields.add(new Field((int) (tag >>> 3), readVarint(data, offset), null));
+            } else if (wireType == 2) {
+                int length = (int) readVarint(data, offset);
+                fields.add(new Field((int) (tag >>> 3), 0, Arrays.copyOfRange(data, offset[0], offset[0] + length)));
+                offset[0] += length;
+            } else {
+                fail("Type de champ inattendu: " + wireType);
+            }
+        }
+        return fields;
+    }
+
+    private static long readVarint(byte[] data, int[] offset) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[offset[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long[] packed(byte[] data) {
+        List<Long> values = new ArrayList<>();
+        int[] offset = {0};
+        while (offset[0] < data.length) {
+            values.add(readVarint(data, offset));
+        }
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static List<Field> only(List<Field> fields, int number) {
+        return fields.stream().filter(f -> f.number() == number).toList();
+    }
+
+    @Test
+    @DisplayName("Tuile à une couche de points avec propriétés")
+    void encode_Points_ShouldWriteLayerFeaturesKeysAndValues() {
+        // Given
+        VectorTileEncoder encoder = new VectorTileEncoder("cities", "name", "population");
+        encoder.addPoint(1, 25, 17, "Paris", 2148271);
+        encoder.addPoint(2, 3, 4, "Lyon", null);
+
+        // When
+        List<Field> tile = parse(encoder.encode());
+
+        // Then
+        assertEquals(1, tile.size());
+        assertEquals(3, tile.get(0).number());
+        List<Field> layer = parse(tile.get(0).bytes());
+        assertEquals(2, only(layer, 15).get(0).varint());
+        assertEquals("cities", new String(only(layer, 1).get(0).bytes(), StandardCharsets.UTF_8));
+        assertEquals(VectorTileEncoder.EXTENT, only(layer, 5).get(0).varint());
+        assertEquals(List.of("name", "population"), only(layer, 3).stream()
+                .map(f -> new String(f.bytes(), StandardCharsets.UTF_8)).toList());
+        assertEquals(3, only(layer, 4).size());
+
+        List<Field> features = only(layer, 2);
+        assertEquals(2, features.size());
+
+        List<Field> paris = parse(features.get(0).bytes());
+        assertEquals(1, only(paris, 1).get(0).varint());
+        assertArrayEquals(new long[]{0, 0, 1, 1}, packed(only(paris, 2).get(0).bytes()));
+        assertEquals(1, only(paris, 3).get(0).varint());
+        // MoveTo(1), zigzag(25) = 50, zigzag(17) = 34
+        assertArrayEquals(new long[]{9, 50, 34}, packed(only(paris, 4).get(0).bytes()));
+
+        List<Field> lyon = parse(features.get(1).bytes());
+        assertArrayEquals(new long[]{0, 2}, packed(only(lyon, 2).get(0).bytes()));
+    }
+
+    @Test
+    @DisplayName("Valeurs identiques partagées et coordonnées négatives du tampon")
+    void encode_SharedValuesAndNegativeCoordinates() {
+        // Given
+        VectorTileEncoder encoder = new VectorTileEncoder("cities", "region");
+        encoder.addPoint(1, -3, 0, "Bretagne");
+        encoder.addPoint(2, 0, 0, "Bretagne");
+
+        // When
+        List<Field> layer = parse(parse(encoder.encode()).get(0).bytes());
+
+        // Then
+        assertEquals(1, only(layer, 4).size());
+        List<Field> first = parse(only(layer, 2).get(0).bytes());
+        assertArrayEquals(new long[]{9, 5, 0}, packed(only(first, 4).get(0).bytes()));
+    }
+
+    @Test
+    @DisplayName("Tuile sans point")
+    void encode_Empty_ShouldReturnNoBytes() {
+        assertEquals(0, new VectorTileEncoder("cities", "name").encode().length);
+    }
+}
@@ -0,0 +1,89 @@
+package td.ekod.map_of_france.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import td.ekod.map_of_france.config.CacheConfig;
+import td.ekod.map_of_france.entity.City;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VectorTileServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private CityIndexService cityIndexService;
+    private CitySpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        GeographyService geographyService = new GeographyService();
+        City paris = new City("Paris", "75000", 48.8566, 2.3522, 2_100_000, "Île-de-France", "Paris");
+        paris.setId(1L);
+        City marseille = new City("Marseille", "13000", 43.2965, 5.3698, 870_000, "Provence-Alpes-Côte d'Azur", "Bouches-du-Rhône");
+        marseille.setId(2L);
+        index = CitySpatialIndex.build(List.of(paris, marseille), geographyService);
+        cityIndexService = mock(CityIndexService.class);
+    }
+
+    private VectorTileService service(DatasetVersion version) {
+        when(cityIndexService.getSnapshot()).thenReturn(new CityIndexService.Snapshot(index, version));
+        when(cityIndexService.getIndex()).thenReturn(index);
+        VectorTileService service = new VectorTileService();
+        ReflectionTestUtils.setField(service, "cityIndexService", cityIndexService);
+        ReflectionTestUtils.setField(service, "cacheManager", new ConcurrentMapCacheManager(CacheConfig.VECTOR_TILES));
+        ReflectionTestUtils.setField(service, "maxFeatures", 2000);
+        ReflectionTestUtils.setField(service, "seedMaxZoom", 3);
+        ReflectionTestUtils.setField(service, "seedDirectory", directory.toString());
+        return service;
+    }
+
+    @Test
+    @DisplayName("Tuiles pré-calculées - écrites par version puis relues au démarrage suivant")
+    void seedLowZoomTiles_SameVersion_ShouldLoadTilesFromDisk() throws IOException {
+        // Given : premier démarrage, tuiles calculées et écrites
+        DatasetVersion version = DatasetVersion.of(index);
+        service(version).seedLowZoomTiles();
+        Path tile = directory.resolve(Path.of(version.hash(), "3", "4", "2.mvt"));
+        assertTrue(Files.isRegularFile(tile));
+        assertTrue(Files.size(tile) > 0);
+
+        // When : démarrage suivant sur le même jeu de villes, fichier marqué
+        Files.write(tile, new byte[]{42});
+        VectorTileService restarted = service(version);
+        restarted.seedLowZoomTiles();
+
+        // Then : la tuile vient du disque, sans recalcul
+        assertArrayEquals(new byte[]{42}, restarted.getTile(3, 4, 2));
+    }
+
+    @Test
+    @DisplayName("Autre version du jeu de villes - tuiles recalculées, anciennes supprimées")
+    void seedLowZoomTiles_OtherVersion_ShouldIgnoreAndDeleteStaleTiles() throws IOException {
+        // Given
+        DatasetVersion stale = new DatasetVersion("0123456789abcdef01234567");
+        service(stale).seedLowZoomTiles();
+        Files.write(directory.resolve(Path.of(stale.hash(), "3", "4", "2.mvt")), new byte[]{42});
+
+        // When
+        DatasetVersion current = DatasetVersion.of(index);
+        VectorTileService service = service(current);
+        service.seedLowZoomTiles();
+
+        // Then
+        assertFalse(Files.exists(directory.resolve(stale.hash())));
+        assertTrue(Files.isRegularFile(directory.resolve(Path.of(current.hash(), "3", "4", "2.mvt"))));
+        assertTrue(service.getTile(3, 4, 2).length > 1);
+    }
+}